@@ -0,0 +1,35 @@
+package bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file runs the benchmarks. It takes
+ * the usual JMH command line (for example a benchmark
+ * name regex, or "-p pegs=4") and always adds the gc
+ * profiler, so allocation rates are reported next to
+ * throughput.
+ *
+ */
+public class BenchmarkMain {
+
+	/**
+	 * Runs the benchmarks.
+	 *
+	 * @param args The JMH command line arguments
+	 * @throws Exception When JMH fails
+	 */
+	public static void main(String[] args) throws Exception {
+		Options options = new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
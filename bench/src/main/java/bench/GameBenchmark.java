@@ -0,0 +1,93 @@
+package bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import controller.Feedback;
+import controller.MastermindController;
+import controller.MastermindIllegalColorException;
+import controller.MastermindIllegalLengthException;
+import model.MastermindModel;
+import model.MastermindSpec;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file benchmarks whole games the
+ * way the views play them. Each game gets a random
+ * secret from a new MastermindModel, and then makes
+ * up to 10 guesses from a fixed pool of valid ones,
+ * calling score, recordGuess and updateGameOver for
+ * each guess just like the text view does.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+	private static final int POOL = 1024;
+	private static final int MAX_GUESSES = 10;
+
+	@Param({"4", "5", "6"})
+	public int pegs;
+
+	@Param({"6", "8", "9"})
+	public int colors;
+
+	private MastermindSpec spec;
+	private String[] guesses;
+	private int next;
+
+	@Setup
+	public void setup() {
+		spec = new MastermindSpec(pegs, colors, true);
+		Random rand = new Random(42);
+		guesses = new String[POOL];
+		for (int i = 0; i < POOL; i++) {
+			char[] guess = new char[pegs];
+			for (int j = 0; j < pegs; j++) {
+				guess[j] = spec.colorChar(rand.nextInt(colors));
+			}
+			guesses[i] = new String(guess);
+		}
+	}
+
+	/**
+	 * Plays one game.
+	 *
+	 * @return The feedback counts added up, so nothing is optimized away
+	 */
+	@Benchmark
+	public int playGame() throws MastermindIllegalColorException, MastermindIllegalLengthException {
+		MastermindModel model = new MastermindModel(spec);
+		MastermindController control = new MastermindController(model);
+		int total = 0;
+		for (int count = 1; count <= MAX_GUESSES; count++) {
+			String guess = guesses[next++ & (POOL - 1)];
+			Feedback feedback = control.score(guess);
+			model.recordGuess(guess, feedback.getBlack(), feedback.getWhite(), count);
+			model.updateGameOver(feedback.isSolved(), count);
+			if (feedback.isSolved()) {
+				break;
+			}
+			total += feedback.getBlack() + feedback.getWhite();
+		}
+		return total;
+	}
+}
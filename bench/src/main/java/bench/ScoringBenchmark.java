@@ -0,0 +1,128 @@
+package bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import controller.Feedback;
+import controller.MastermindController;
+import controller.MastermindIllegalColorException;
+import controller.MastermindIllegalLengthException;
+import model.MastermindModel;
+import model.MastermindSpec;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file benchmarks the controller's
+ * String API one guess at a time: isCorrect,
+ * getRightColorRightPlace, getRightColorWrongPlace, score and
+ * checkExceptions. The guesses cycle through a fixed
+ * pool that is either all valid, all with a bad color,
+ * or all the wrong length, so the cost of rejecting
+ * bad input shows up on its own.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScoringBenchmark {
+	private static final int POOL = 256;
+
+	@Param({"4", "5", "6"})
+	public int pegs;
+
+	@Param({"6", "8", "9"})
+	public int colors;
+
+	@Param({"valid", "badColor", "badLength"})
+	public String input;
+
+	private MastermindController control;
+	private String[] guesses;
+	private int next;
+
+	@Setup
+	public void setup() {
+		MastermindSpec spec = new MastermindSpec(pegs, colors, true);
+		control = new MastermindController(new MastermindModel(spec));
+		Random rand = new Random(42);
+		guesses = new String[POOL];
+		for (int i = 0; i < POOL; i++) {
+			int length = input.equals("badLength") ? pegs + 1 : pegs;
+			char[] guess = new char[length];
+			for (int j = 0; j < length; j++) {
+				guess[j] = spec.colorChar(rand.nextInt(colors));
+			}
+			if (input.equals("badColor")) {
+				guess[rand.nextInt(length)] = 'x';
+			}
+			guesses[i] = new String(guess);
+		}
+	}
+
+	private String nextGuess() {
+		return guesses[next++ & (POOL - 1)];
+	}
+
+	@Benchmark
+	public boolean isCorrect() {
+		try {
+			return control.isCorrect(nextGuess());
+		} catch (MastermindIllegalColorException | MastermindIllegalLengthException e) {
+			return false;
+		}
+	}
+
+	@Benchmark
+	public int rightColorRightPlace() {
+		try {
+			return control.getRightColorRightPlace(nextGuess());
+		} catch (MastermindIllegalColorException | MastermindIllegalLengthException e) {
+			return -1;
+		}
+	}
+
+	@Benchmark
+	public int rightColorWrongPlace() {
+		try {
+			return control.getRightColorWrongPlace(nextGuess());
+		} catch (MastermindIllegalColorException | MastermindIllegalLengthException e) {
+			return -1;
+		}
+	}
+
+	@Benchmark
+	public Feedback score() {
+		try {
+			return control.score(nextGuess());
+		} catch (MastermindIllegalColorException | MastermindIllegalLengthException e) {
+			return null;
+		}
+	}
+
+	@Benchmark
+	public boolean checkExceptions() {
+		try {
+			control.checkExceptions(nextGuess());
+			return true;
+		} catch (MastermindIllegalColorException | MastermindIllegalLengthException e) {
+			return false;
+		}
+	}
+}
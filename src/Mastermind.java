@@ -4,6 +4,7 @@ import controller.MastermindController;
 import controller.MastermindIllegalColorException;
 import controller.MastermindIllegalLengthException;
 import javafx.application.Application;
+import metrics.GameMetrics;
 import model.MastermindModel;
 
 /**
@@ -29,7 +30,7 @@ public class Mastermind {
 	 * @throws Exception 
 	 */
 	public static void main(String[] args) throws Exception {
-		
+		GameMetrics.register();
 		Application.launch(MastermindGUIView.class, args);
 
 	}
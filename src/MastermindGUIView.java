@@ -1,9 +1,12 @@
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
-import java.util.Observable;
-import java.util.Observer;
+import java.util.concurrent.CompletableFuture;
 
+import controller.AdversarialCodemaker;
+import controller.CandidateTracker;
+import controller.Feedback;
 import controller.MastermindController;
 import controller.MastermindIllegalColorException;
 import controller.MastermindIllegalLengthException;
@@ -16,6 +19,7 @@ import javafx.scene.Group;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 import javafx.scene.input.MouseButton;
@@ -36,7 +40,10 @@ import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.scene.text.Text;
 import javafx.stage.Stage;
+import model.GameListener;
 import model.MastermindModel;
+import model.MastermindSpec;
+import solver.HintService;
 
 /**
  * 
@@ -46,19 +53,27 @@ import model.MastermindModel;
  * of the Mastermind game. It can be invoked with the arguments -window.
  * It follows the same rules as the text-based version, with some changes.
  * It uses JavaFx to display a stage with a scene of panes that hold the 
- * necessary buttons, circles, and more. There are 4 circles on the bottom 
+ * necessary buttons, circles, and more. There is one circle per peg on the
+ * bottom (4 in the classic game, see MastermindSpec.fromArgs for other sizes)
  * that can be clicked until the desired color is chosen. When the guess
  * button is clicked, it sets up a row with the guess number, the chosen
  * colors, and the right color right place and right color wrong place pegs.
  * If the user wins, loses, or leaves pegs black, a modal alert shows up
  * displaying information about the event. When the game is over, the
- * window is disabled to prevent further guesses.
+ * window is disabled to prevent further guesses. The Hard box starts a
+ * new game where the codemaker keeps changing the secret to dodge the
+ * guesses (see AdversarialCodemaker). The rows of the board
+ * are all made once, hidden, and filled in as guesses come; a new game
+ * only hides them again, so the window is never rebuilt between games.
  */
 
-public class MastermindGUIView extends javafx.application.Application implements Observer {
+public class MastermindGUIView extends javafx.application.Application implements GameListener {
 	
 	//Instance variables (UI controls: buttons, labels, text, etc)
 	private Button guessButton2;
+	private Button hintButton;
+	private CheckBox hardBox;
+	private Label hintLabel;
 	private int guessCount;
 	private char[] guessArray;
 	private String guessStr;
@@ -70,8 +85,24 @@ public class MastermindGUIView extends javafx.application.Application implements
 	private int pegNum;
 	private Circle curPeg;
 	private boolean gameOver;
-	private GridPane checks;
+	private BorderPane root;
+	private BoardRow[] rows;
+	private MastermindModel model;
+	private MastermindController control;
 	private static Stage mainStage;
+	private static MastermindGUIView mainView;
+	private static MastermindSpec spec;
+	private CandidateTracker candidates;
+	private HintService hints;
+	// the hint asked for last, or null once a guess or a new game has made it out of date
+	private CompletableFuture<HintService.Hint> pendingHint;
+	
+	// a game is lost after this many wrong guesses, so the board needs this many rows
+	private static final int MAX_GUESSES = 10;
+	
+	// the JavaFX colors for MastermindSpec.PALETTE, in the same order
+	private static final String[] COLOR_NAMES = {"red", "green", "blue", "yellow", "purple", "orange",
+			"white", "cyan", "magenta", "saddlebrown", "gray", "lime", "pink", "teal", "navy", "salmon"};
 		
 	/**
 	 * This is the constructor.
@@ -79,17 +110,19 @@ public class MastermindGUIView extends javafx.application.Application implements
 	 */
 	public MastermindGUIView() {
 		guessButton2 = new Button("Guess");
+		hintButton = new Button("Hint");
+		hardBox = new CheckBox("Hard");
+		hintLabel = new Label();
 		guessCount = 1;
 		guessArray = new char[4];
 		guessStr = "....";
 		pegArrayGuess = new Circle[4];
 		pegArrayChecks = new Circle[4];
-		colors = new LinkedHashMap();
+		colors = new LinkedHashMap<>();
 		solution = new char[4];
 		pegNum = 0;
 		curPeg = new Circle(10,10,10);
 		gameOver = false;
-		checks = new GridPane();
 		mainStage = null;
 	}
 	
@@ -103,46 +136,61 @@ public class MastermindGUIView extends javafx.application.Application implements
 	 */
 	public void start(Stage stage) throws Exception {
 		mainStage = stage;
+		mainView = this;
 		
-		rowNum = 1;
-		
-		MastermindModel model = new MastermindModel();
-		model.addObserver(this);
+		// the spec comes from the command line the first time, and is kept for restarts
+		if (spec == null) {
+			spec = MastermindSpec.fromArgs(getParameters().getRaw().toArray(new String[0]));
+		}
+		guessArray = new char[spec.getPegs()];
+		pegArrayGuess = new Circle[spec.getPegs()];
+		pegArrayChecks = new Circle[spec.getPegs()];
+		for (int i = 0; i < spec.getColors(); i++) {
+			colors.put(spec.colorChar(i), COLOR_NAMES[i]);
+		}
 		
-		solution = model.solution;
-
-		MastermindController control = new MastermindController(model);
+		// hints are worked out on a thread of their own, so the window never waits on them
+		hints = HintService.supports(spec) ? new HintService(spec, HintService.DEFAULT_BUDGET_NANOS) : null;
+		stage.setOnHidden((event) -> {
+			if (hints != null) {
+				hints.close();
+			}
+		});
 		
-		Observable watch = new Observable();
-		BorderPane root = new BorderPane();
+		root = new BorderPane();
 	    VBox center = new VBox();
-		GridPane lastCol2 = new GridPane();
 		
 	    // bottom pegs
-	    Circle peg0 = new Circle();
-		peg0.setRadius(20);
-		pegArrayGuess[0] = peg0;
-		Circle peg1 = new Circle();
-		peg1.setRadius(20);
-		pegArrayGuess[1] = peg1;
-		Circle peg2 = new Circle();
-		peg2.setRadius(20);
-		pegArrayGuess[2] = peg2;
-		Circle peg3 = new Circle();
-		peg3.setRadius(20);
-		pegArrayGuess[3] = peg3;
+		for (int i = 0; i < pegArrayGuess.length; i++) {
+			Circle peg = new Circle();
+			peg.setRadius(20);
+			peg.setId(String.valueOf(i)); // allows the bottom pegs to be referred back to
+			colorCircles(peg); // cycles through the colors on the bottom as the user clicks pegs
+			pegArrayGuess[i] = peg;
+		}
 		
 		makeLowerPane(root, guessButton2, pegArrayGuess);
 		
-		peg0.setId("0"); // allows the bottom pegs to be referred back to
-		peg1.setId("1");
-		peg2.setId("2");
-		peg3.setId("3");
+		hintLabel.setPadding(new Insets(5));
+		root.setTop(hintLabel);
 		
-		colorCircles(peg0); // cycles through the colors on the bottom as the user clicks pegs
-		colorCircles(peg1);
-		colorCircles(peg2);
-		colorCircles(peg3);
+		// when the hint button is clicked
+		hintButton.setDisable(hints == null);
+		hintButton.setOnAction((event) -> {
+			hintLabel.setText("Thinking...");
+			CompletableFuture<HintService.Hint> request = hints.request();
+			pendingHint = request;
+			request.thenAccept(hint -> Platform.runLater(() -> {
+				// a hint that came just as the position changed is dropped
+				if (pendingHint == request) {
+					showHint(hint);
+				}
+			}));
+		});
+
+		// the hard level (see AdversarialCodemaker) starts a new game when it is changed
+		hardBox.setDisable(!AdversarialCodemaker.supports(spec));
+		hardBox.setOnAction((event) -> newGame());
 
 		// when the guess button is clicked
 		guessButton2.setOnAction((event) -> { 
@@ -153,52 +201,43 @@ public class MastermindGUIView extends javafx.application.Application implements
 					guessStrCopy += guessArray[i];
 				}
 				
-				boolean correct = control.isCorrect(guessStrCopy);
-				
-				model.updateGameOver(correct, guessCount, guessButton2);
-				if (gameOver) {
-					gameOver = false;
-					root.setDisable(true);
-				}
+				Feedback feedback = control.score(guessStrCopy);
 				
 				// right color right place (black circs) & right color wrong place (white circs)
-				int rcrp = control.getRightColorRightPlace(guessStrCopy);
-				int rcwp = control.getRightColorWrongPlace(guessStrCopy);
-				
-				// build the 2x2 grid of feedback
-				GridPane checks = new GridPane();
-				GridPane newChecks1 = makeChecks(0, rcrp, Color.BLACK, control, guessStrCopy, checks);
-				GridPane newChecks2 = makeChecks(rcrp, rcrp+rcwp, Color.WHITE, control, guessStrCopy, checks);
+				int rcrp = feedback.getBlack();
+				int rcwp = feedback.getWhite();
+				model.recordGuess(guessStrCopy, rcrp, rcwp, guessCount);
+				if (candidates != null) {
+					candidates.update(guessStrCopy, rcrp, rcwp);
+				}
+				// this also drops a hint that hasn't come yet
+				if (hints != null) {
+					hints.played(guessStrCopy, rcrp, rcwp);
+				}
+				pendingHint = null;
+				hintLabel.setText("");
 				
-				// build the row of info
-				makeRow(pegArrayGuess, newChecks2, center);
+				// fill in the guess's row of the board
+				rows[guessCount - 1].show(pegArrayGuess, rcrp, rcwp);
 				
 				guessCount++;
 				rowNum++;
+				clearGuess();
 				
-				// reset guess array
-				guessArray = new char[4];
-				
-				// reset pegs to default (black)
-				peg0.setFill(Color.BLACK);
-				peg1.setFill(Color.BLACK);
-				peg2.setFill(Color.BLACK);
-				peg3.setFill(Color.BLACK);
+				// the end dialog shows here when the game is over, and "New Game" may
+				// reset the board before it returns, so nothing after this touches the board
+				model.updateGameOver(feedback.isSolved(), guessCount - 1);
+				if (gameOver) {
+					gameOver = false;
+					root.setDisable(true);
+				}
 			} catch (MastermindIllegalColorException e) { // if there are any pegs set to default (black) show alert (invalid)
 				Alert a = new Alert(Alert.AlertType.WARNING);
 				a.setTitle("Warning");
-				a.setContentText("You must pick 4 colors (don't leave any black)");
+				a.setContentText("You must pick " + spec.getPegs() + " colors (don't leave any black)");
 				a.setHeaderText("Invalid Color Settings");
 				a.showAndWait();
-				
-				// reset guess array
-				guessArray = new char[4];
-				
-				// reset pegs to default (black)
-				peg0.setFill(Color.BLACK);
-				peg1.setFill(Color.BLACK);
-				peg2.setFill(Color.BLACK);
-				peg3.setFill(Color.BLACK);
+				clearGuess();
 			} catch (MastermindIllegalLengthException e) {
 				e.printStackTrace();
 			} catch (Exception e) {
@@ -212,6 +251,9 @@ public class MastermindGUIView extends javafx.application.Application implements
 		
 		center.setAlignment(Pos.TOP_CENTER);
 		root.setCenter(center);
+		
+		makeBoard(center);
+		newGame();
 
 	    Scene scene = new Scene(root);
 	    stage.setScene(scene);
@@ -221,6 +263,45 @@ public class MastermindGUIView extends javafx.application.Application implements
 	    stage.show();
 	}
 	
+	/**
+	 * This function starts a new game in the same window.
+	 * It is the one place a game's model and controller are
+	 * made, and it puts the board back the way it started by
+	 * hiding its rows, without making any new nodes.
+	 */
+	public void newGame() {
+		model = new MastermindModel(spec, hardBox.isSelected());
+		model.getEvents().add(this);
+		solution = model.getSolution().toCharArray();
+		control = new MastermindController(model);
+		candidates = CandidateTracker.supports(spec) ? new CandidateTracker(control) : null;
+		if (hints != null) {
+			hints.reset();
+		}
+		pendingHint = null;
+		
+		guessCount = 1;
+		rowNum = 1;
+		gameOver = false;
+		for (BoardRow row : rows) {
+			row.clear();
+		}
+		clearGuess();
+		hintLabel.setText("");
+		root.setDisable(false);
+	}
+	
+	/**
+	 * This function empties the guess and sets the bottom pegs
+	 * back to the default (black).
+	 */
+	private void clearGuess() {
+		Arrays.fill(guessArray, '\0');
+		for (Circle peg : pegArrayGuess) {
+			peg.setFill(Color.BLACK);
+		}
+	}
+	
 	/**
 	 * This function creates the lower pane for guessing by the user clicking pegs.
 	 * @param root the pane for layout
@@ -229,23 +310,18 @@ public class MastermindGUIView extends javafx.application.Application implements
 	 */
 	public void makeLowerPane(BorderPane root, Button guessButton2, Circle[] pegArrayGuess) {
 		GridPane bottom = new GridPane();
-		Circle peg0 = new Circle();
-		peg0.setRadius(20.0f);
-		Circle peg1 = new Circle();
-		peg1.setRadius(20.0f);
-		Circle peg2 = new Circle();
-		peg2.setRadius(20.0f);
-		Circle peg3 = new Circle();
-		peg3.setRadius(20.0f);
 		GridPane lastCol2 = new GridPane();
+		int last = pegArrayGuess.length - 1;
 		
-		bottom.add(pegArrayGuess[0], 0, 0);
-		bottom.add(pegArrayGuess[1], 1, 0);
-		bottom.add(pegArrayGuess[2], 2, 0);
-		lastCol2.setHgap(20);
-		lastCol2.add(pegArrayGuess[3], 0, 0);
+		for (int i = 0; i < last; i++) {
+			bottom.add(pegArrayGuess[i], i, 0);
+		}
+		lastCol2.setHgap(10);
+		lastCol2.add(pegArrayGuess[last], 0, 0);
 		lastCol2.add(guessButton2, 1, 0);
-		bottom.add(lastCol2, 3, 0);
+		lastCol2.add(hintButton, 2, 0);
+		lastCol2.add(hardBox, 3, 0);
+		bottom.add(lastCol2, last, 0);
 		
 		bottom.setAlignment(Pos.CENTER);
 		bottom.setPadding(new Insets(5));
@@ -253,6 +329,23 @@ public class MastermindGUIView extends javafx.application.Application implements
 		root.setBottom(bottom);
 	}
 	
+	/**
+	 * This function puts a hint's guess on the bottom pegs
+	 * and shows how many secrets are still possible.
+	 * @param hint the hint from the HintService
+	 */
+	public void showHint(HintService.Hint hint) {
+		if (hint.getGuess() == null) {
+			hintLabel.setText("No secret fits the feedback");
+			return;
+		}
+		for (int i = 0; i < pegArrayGuess.length; i++) {
+			guessArray[i] = hint.getGuess().charAt(i);
+			pegArrayGuess[i].setFill(Color.web(colors.get(guessArray[i])));
+		}
+		hintLabel.setText("Hint: " + hint.getRemaining() + " secrets still possible");
+	}
+	
 	/**
 	 * This function cycles through to the next color
 	 * of available colors each time the pegs each time the user
@@ -261,136 +354,133 @@ public class MastermindGUIView extends javafx.application.Application implements
 	 */
 	public void colorCircles(Circle peg) {
 		peg.setOnMouseClicked((event) -> { 
-			// cycle through the game's colors (r,g,b,y,p,o)
-			if (peg.getFill().equals(Color.BLACK)) {
-				peg.setFill(Color.RED);
-				guessArray[Integer.parseInt(peg.getId())] = 'r';
-			} else if (peg.getFill().equals(Color.RED)) {
-				peg.setFill(Color.ORANGE);
-				guessArray[Integer.parseInt(peg.getId())] = 'o';
-			} else if (peg.getFill().equals(Color.ORANGE)) {
-				peg.setFill(Color.YELLOW);
-				guessArray[Integer.parseInt(peg.getId())] = 'y';
-			} else if (peg.getFill().equals(Color.YELLOW)) {
-				peg.setFill(Color.GREEN);
-				guessArray[Integer.parseInt(peg.getId())] = 'g';
-			} else if (peg.getFill().equals(Color.GREEN)) {
-				peg.setFill(Color.BLUE);
-				guessArray[Integer.parseInt(peg.getId())] = 'b';
-			} else if (peg.getFill().equals(Color.BLUE)) {
-				peg.setFill(Color.PURPLE);
-				guessArray[Integer.parseInt(peg.getId())] = 'p';
-			} else if (peg.getFill().equals(Color.PURPLE)) {
-				peg.setFill(Color.RED);
-				guessArray[Integer.parseInt(peg.getId())] = 'r';
-			} 
+			// cycle through the game's colors (r,g,b,y,p,o in the classic game)
+			int id = Integer.parseInt(peg.getId());
+			int next = (spec.colorIndex(guessArray[id]) + 1) % spec.getColors(); // black (-1) goes to the first color
+			guessArray[id] = spec.colorChar(next);
+			peg.setFill(Color.web(colors.get(guessArray[id])));
 		});
 	}
 	
 	/**
-	 * This function makes the 2x2 feedback grid for rcrp and rcwp.
-	 * @param start the initial bound
-	 * @param end the limit bound
-	 * @param color the color
-	 * @param control the controller
-	 * @param guessStrCopy the copy of the guess
-	 * @param checks the 2x2 grid
+	 * This function makes every row of the board once, hidden,
+	 * so a guess only has to fill one in.
+	 * @param center the pane the rows go in
 	 */
-	public GridPane makeChecks(int start, int end, Color color, MastermindController control, String guessStrCopy, GridPane newChecks) { // was checks
-				
-		newChecks.setPadding(new Insets(5)); // seems to be how far right it's nudged/ space around
-		newChecks.setHgap(5);
-		newChecks.setVgap(5);
-		
-		Circle c1 = new Circle(10,10,5);
-		Circle c2 = new Circle(10,10,5);
-		Circle c3 = new Circle(10,10,5);
-		Circle c4 = new Circle(10,10,5);
-		
-		for (int i=start; i<end; i++) {
-			if (i == 0) {
-				newChecks.add(c1, i, 0);
-				c1.setFill(color);
-			} else if (i == 1) {
-				newChecks.add(c2, i, 0);
-				c2.setFill(color);
-			} else if (i == 2) {
-				newChecks.add(c3, i-2, 1);
-				c3.setFill(color);
-			} else if (i == 3) {
-				newChecks.add(c4, i-2, 1);
-				c4.setFill(color);
-			}
+	public void makeBoard(VBox center) {
+		rows = new BoardRow[MAX_GUESSES];
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = new BoardRow(i + 1);
+			center.getChildren().add(rows[i].row);
 		}
-		
-		checks = new GridPane();
-		
-		return newChecks;
 	}
 	
 	/**
-	 * This function makes a row using the current guess number, pegs, and 2x2 grid.
-	 * @param pegArrayGuess
-	 * @param checks
-	 * @param center
+	 * This inner class is one row of the board: the guess number,
+	 * the guess's pegs, and the feedback grid for rcrp and rcwp
+	 * (2x2 in the classic game, two rows of pegs/2 in general).
 	 */
-	public void makeRow(Circle[] pegArrayGuess, GridPane checks, VBox center) {
-		GridPane row1 = new GridPane(); // new row from 1-10
-		Circle pegW = new Circle();
-		pegW.setRadius(pegArrayGuess[0].getRadius());
-		pegW.setFill(pegArrayGuess[0].getFill());
-		Circle pegX = new Circle();
-		pegX.setRadius(pegArrayGuess[1].getRadius());
-		pegX.setFill(pegArrayGuess[1].getFill());
-		Circle pegY = new Circle();
-		pegY.setRadius(pegArrayGuess[2].getRadius());
-		pegY.setFill(pegArrayGuess[2].getFill());
-		Circle pegZ = new Circle();
-		pegZ.setRadius(pegArrayGuess[3].getRadius());
-		pegZ.setFill(pegArrayGuess[3].getFill());
-		Text num = new Text();
-		num.setFont(new Font(20));
-		GridPane lastCol = new GridPane();
-	    GridPane centerGrid = new GridPane();
-	    
-	    if (guessCount < 10) {
-			num.setText("     " + rowNum);
-		} else {
-			num.setText("   " + rowNum);
-		}
+	private class BoardRow {
+		private final GridPane row = new GridPane();
+		private final Circle[] pegs = new Circle[spec.getPegs()];
+		private final Circle[] checks = new Circle[spec.getPegs()];
 		
-		row1.setHgap(25);
+		/**
+		 * This is the constructor. It lays the row out, hidden.
+		 * @param number the guess number of the row, from 1 to 10
+		 */
+		BoardRow(int number) {
+			Text num = new Text();
+			num.setFont(new Font(20));
+			num.setText(number < 10 ? "     " + number : "   " + number);
+			
+			GridPane grid = new GridPane();
+			grid.setPadding(new Insets(5)); // seems to be how far right it's nudged/ space around
+			grid.setHgap(5);
+			grid.setVgap(5);
+			int cols = (checks.length + 1) / 2;
+			for (int i = 0; i < checks.length; i++) {
+				checks[i] = new Circle(10,10,5);
+				grid.add(checks[i], i % cols, i / cols);
+			}
+			
+			row.setHgap(25);
+			row.add(num, 0, 0);
+			int last = pegs.length - 1;
+			for (int i = 0; i < pegs.length; i++) {
+				pegs[i] = new Circle();
+				pegs[i].setRadius(20);
+				if (i < last) {
+					row.add(pegs[i], i + 1, 0);
+				}
+			}
+			GridPane lastCol = new GridPane();
+			lastCol.setHgap(10);
+			lastCol.add(pegs[last], 0, 0);
+			lastCol.add(grid, 1, 0);
+			row.add(lastCol, last + 1, 0);
+			clear();
+		}
 		
-		row1.add(num, 0, 0);
-		row1.add(pegW, 1, 0);
-		row1.add(pegX, 2, 0);
-		row1.add(pegY, 3, 0);
-		lastCol.setHgap(10);
-		lastCol.add(pegZ, 0, 0);
-		lastCol.add(checks, 1, 0);
-		row1.add(lastCol, 4, 0);
+		/**
+		 * This function fills the row in with a guess and shows it.
+		 * @param guessPegs the bottom pegs holding the guess
+		 * @param rcrp the right color right place count (black checks)
+		 * @param rcwp the right color wrong place count (white checks)
+		 */
+		void show(Circle[] guessPegs, int rcrp, int rcwp) {
+			for (int i = 0; i < pegs.length; i++) {
+				pegs[i].setFill(guessPegs[i].getFill());
+			}
+			for (int i = 0; i < checks.length; i++) {
+				checks[i].setFill(i < rcrp ? Color.BLACK : Color.WHITE);
+				checks[i].setVisible(i < rcrp + rcwp);
+			}
+			row.setManaged(true);
+			row.setVisible(true);
+		}
 		
-		centerGrid.add(row1, 0, guessCount);
-	    center.getChildren().add(centerGrid);
+		/**
+		 * This function hides the row, taking it out of the layout.
+		 */
+		void clear() {
+			row.setVisible(false);
+			row.setManaged(false);
+		}
+	}
+
+	/**
+	 * Get the codes still consistent with the feedback
+	 * of the current game.
+	 * 
+	 * @return The current game's CandidateTracker, or null if the spec is too large to track
+	 */
+	public CandidateTracker getCandidates() {
+		return candidates;
 	}
 
 	@Override
 	/**
-	 * This function redraws the needed graphics.
+	 * This function shows the win dialog when the game is won.
 	 */
-	public void update(Observable o, Object arg) { // arg is given data/ boolean, observable is model
-		
-		// checks if game has been won or lost
-		
-		if ((int) arg == 1) {
-			AlertDialog a = new AlertDialog();
-			a.display(1);
-			gameOver = true;
-		} else if ((int) arg == 2) {
-			AlertDialog a = new AlertDialog();
-			a.display(2);
-			gameOver = true;
-		}
+	public void gameWon(MastermindModel model, int guessCount) {
+		// set first, since "New Game" in the dialog clears it
+		gameOver = true;
+		// a hard game's solution is only settled now
+		solution = model.getSolution().toCharArray();
+		AlertDialog.display(1);
+	}
+	
+	@Override
+	/**
+	 * This function shows the loss dialog when the game is lost.
+	 */
+	public void gameLost(MastermindModel model, int guessCount) {
+		// set first, since "New Game" in the dialog clears it
+		gameOver = true;
+		// a hard game's solution is only settled now
+		solution = model.getSolution().toCharArray();
+		AlertDialog.display(2);
 	}
 	
 	/**
@@ -431,19 +521,7 @@ public class MastermindGUIView extends javafx.application.Application implements
 	        layout.setMaxHeight(10);
 	        
 	        for (int i = 0; i < solution.length; i++) {
-	        	if (solution[i] == 'r') {
-	        		layout.add(new Circle(10,10,15,Color.RED), i, 0);
-	        	} else if (solution[i] == 'o') {
-	        		layout.add(new Circle(10,10,15,Color.ORANGE), i, 0);
-	        	} else if (solution[i] == 'y') {
-	        		layout.add(new Circle(10,10,15,Color.YELLOW), i, 0);
-	        	} else if (solution[i] == 'g') {
-	        		layout.add(new Circle(10,10,15,Color.GREEN), i, 0);
-	        	} else if (solution[i] == 'b') {
-	        		layout.add(new Circle(10,10,15,Color.BLUE), i, 0);
-	        	} else if (solution[i] == 'p') {
-	        		layout.add(new Circle(10,10,15,Color.PURPLE), i, 0);
-	        	}
+	        	layout.add(new Circle(10,10,15,Color.web(colors.get(solution[i]))), i, 0);
 	        }
 	        
 	        HBox btns = new HBox();
@@ -487,19 +565,14 @@ public class MastermindGUIView extends javafx.application.Application implements
 	}
 	
 	/**
-	 * This function restarts the game upon clicking "Yes" when a game ends.
+	 * This function restarts the game upon clicking "New Game" when a game ends,
+	 * on the same window.
 	 */
 	static void restartGame() {
         Platform.runLater(new Runnable() {
             @Override
             public void run() {
-        		mainStage.close();
-            	MastermindGUIView mainView = new MastermindGUIView();
-                try {
-                    mainView.start(new Stage());
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
+            	mainView.newGame();
             }
         });
     }
@@ -0,0 +1,29 @@
+import metrics.GameMetrics;
+import model.MastermindSpec;
+
+/**
+ * 
+ * @author Aleksander Dimitrov
+ * 
+ * Description: This file starts the text
+ * version of Mastermind (see MastermindTextView).
+ * Unlike Mastermind, it never touches JavaFX,
+ * so it only needs the core classes (model,
+ * controller and the text view) and starts up
+ * quickly. It is the main class of MastermindText.jar.
+ *
+ */
+public class MastermindText {
+	/**
+	 * Plays the text version.
+	 * 
+	 * The game's metrics can be watched over JMX
+	 * while it runs (see GameMetrics).
+	 * 
+	 * @param args The command arguments (see MastermindSpec.fromArgs)
+	 */
+	public static void main(String[] args) {
+		GameMetrics.register();
+		new MastermindTextView(MastermindSpec.fromArgs(args)).run();
+	}
+}
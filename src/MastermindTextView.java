@@ -1,16 +1,42 @@
-import java.util.Observable;
-import java.util.Observer;
 import java.util.Scanner;
 
+import controller.AdversarialCodemaker;
+import controller.CandidateTracker;
+import controller.Feedback;
 import controller.MastermindController;
 import controller.MastermindIllegalColorException;
 import controller.MastermindIllegalLengthException;
 import model.MastermindModel;
+import model.MastermindSpec;
+import solver.HintService;
 
-public class MastermindTextView implements Observer {
+public class MastermindTextView {
+	private final MastermindSpec spec;
+	private CandidateTracker candidates;
+	private HintService hints;
+	// whether the games being played are adversarial (see AdversarialCodemaker)
+	private boolean hard;
+	
+	/**
+	 * This is the constructor for a classic game.
+	 */
+	public MastermindTextView() {
+		this(MastermindSpec.CLASSIC);
+	}
+	
+	/**
+	 * This constructor plays every game with the given spec.
+	 * 
+	 * @param spec The MastermindSpec of the games to play
+	 */
+	public MastermindTextView(MastermindSpec spec) {
+		this.spec = spec;
+	}
+	
 	public void run() {
 		System.out.println("Welcome to Mastermind!");
-		System.out.println("Type play to start, or quit to end.");
+		System.out.println("Type play to start, hard for a codemaker who won't settle on a secret, or quit to end.");
+		System.out.println("Type hint instead of a guess for a suggestion.");
 		boolean quit = false;
 		boolean countUp = false;
 		boolean firstGame = true;
@@ -18,45 +44,59 @@ public class MastermindTextView implements Observer {
 		int counter = 1;
 		
 		Scanner stream = new Scanner(System.in);
-		String input = stream.nextLine();
+		String input = readChoice(stream, true);
 		
-		MastermindController control = new MastermindController(new MastermindModel());
+		// made when a game starts, since hard may be typed after an answer that wasn't understood
+		MastermindController control = null;
 		
 		while (!quit) {
-			if (!firstGame && newControl && input.equals("yes")) {
-				control = new MastermindController(new MastermindModel());
+			if (newControl && ((firstGame && input.equals("play")) || (!firstGame && input.equals("yes")))) {
+				control = new MastermindController(new MastermindModel(spec, hard));
+				startTracking(control);
 				newControl = false;
 			}
 			if ((firstGame && input.equals("play")) || (!firstGame && input.equals("yes"))) {
 				System.out.println("\nInput a guess:");
 				String guess = stream.nextLine();
 				System.out.println();
+				if (guess.equals("hint")) {
+					showHint();
+					continue;
+				}
 				// this does a try/ catch block to check if isCorrect
 				// throws an exception due to the guess having an invalid 
 				// length or color, to determine guess validity overall
 				try {
-					boolean correct = control.isCorrect(guess);
-					if (correct) {
+					Feedback feedback = control.score(guess);
+					int rightPlace = feedback.getBlack();
+					int wrongPlace = feedback.getWhite();
+					control.model.recordGuess(guess, rightPlace, wrongPlace, counter);
+					control.model.updateGameOver(feedback.isSolved(), counter);
+					if (feedback.isSolved()) {
 						System.out.println("You Win!\n");
-						System.out.println("Play again?");
+						System.out.println("Play again? (yes, hard or no)");
 						firstGame = false;
 						newControl = true;
 						counter = 1;
-						input = stream.nextLine();
-					} else if (!correct && counter == 10) {
+						input = readChoice(stream, false);
+					} else if (counter == 10) {
 						System.out.println("You Lose.");
 						System.out.println("Solution: " + control.model);
-						System.out.println("\nPlay again?");
+						System.out.println("\nPlay again? (yes, hard or no)");
 						firstGame = false;
 						newControl = true;
 						counter = 1;
-						input = stream.nextLine();						
+						input = readChoice(stream, false);						
 					} else {
 						System.out.println("Try again");
-						System.out.println("Pegs that are placed correctly: " + 
-								control.getRightColorRightPlace(guess));
-						System.out.println("Pegs of the right color but in the wrong spot: " + 
-								control.getRightColorWrongPlace(guess));
+						System.out.println("Pegs that are placed correctly: " + rightPlace);
+						System.out.println("Pegs of the right color but in the wrong spot: " + wrongPlace);
+						if (candidates != null) {
+							candidates.update(guess, rightPlace, wrongPlace);
+						}
+						if (hints != null) {
+							hints.played(guess, rightPlace, wrongPlace);
+						}
 						counter++;
 					}
 				} catch (MastermindIllegalColorException errorColor) {
@@ -73,15 +113,77 @@ public class MastermindTextView implements Observer {
 				System.exit(0);
 			} else {
 				System.out.println("I didn't quite get that.");
-				input = stream.nextLine();
+				input = readChoice(stream, firstGame);
 			}
 	
 	}
 		stream.close();
 	}
 
-	@Override
-	public void update(Observable o, Object arg) {
+	/**
+	 * Reads the answer to starting a game. Typing hard
+	 * starts the game like play (or yes) would, but with
+	 * the adversarial codemaker.
+	 * 
+	 * @param stream Where the answer is read from
+	 * @param firstGame Whether no game has been played yet
+	 * @return The answer, with hard turned into play or yes
+	 */
+	private String readChoice(Scanner stream, boolean firstGame) {
+		String input = stream.nextLine();
+		if (input.equals("hard")) {
+			if (!AdversarialCodemaker.supports(spec)) {
+				System.out.println("Hard games need a spec with fewer codes.");
+				return input;
+			}
+			System.out.println("Hard game: the codemaker keeps changing the secret to dodge your guesses.");
+			hard = true;
+			return firstGame ? "play" : "yes";
+		}
+		if (input.equals("play") || input.equals("yes")) {
+			hard = false;
+		}
+		return input;
+	}
+	
+	/**
+	 * Starts tracking the candidates of a new game,
+	 * if the spec is small enough to track.
+	 * 
+	 * @param control The MastermindController of the new game
+	 */
+	private void startTracking(MastermindController control) {
+		candidates = CandidateTracker.supports(spec) ? new CandidateTracker(control) : null;
+		// the hint thread is kept from game to game
+		if (hints != null) {
+			hints.reset();
+		} else if (HintService.supports(spec)) {
+			hints = new HintService(spec, HintService.DEFAULT_BUDGET_NANOS);
+		}
+	}
+	
+	/**
+	 * Prints a guess to try and how many secrets are
+	 * still possible, for the "hint" command.
+	 */
+	private void showHint() {
+		if (hints == null) {
+			System.out.println("No hints for a game this large.");
+		} else {
+			HintService.Hint hint = hints.request().join();
+			System.out.println("Hint: try " + hint.getGuess());
+			System.out.println("Secrets still possible: " + hint.getRemaining());
+		}
+	}
+	
+	/**
+	 * Get the codes still consistent with the feedback
+	 * of the current game.
+	 * 
+	 * @return The current game's CandidateTracker, or null if the spec is too large to track
+	 */
+	public CandidateTracker getCandidates() {
+		return candidates;
 	}
 
 }
@@ -0,0 +1,109 @@
+package controller;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import model.MastermindSpec;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file is the codemaker of the hard
+ * difficulty level, which never settles on a secret. It
+ * keeps every code that fits the feedback given so far,
+ * and answers each guess with the feedback shared by the
+ * most of them, so the player learns as little as the
+ * rules allow. Each answer is the true feedback for some
+ * code that is still kept, so the game stays fair: the
+ * player can still win, and the secret shown at the end
+ * fits every feedback they got. A guess costs one pass to
+ * count the partitions and one to filter, over the codes
+ * still kept. Guesses from several threads are answered
+ * one at a time.
+ *
+ */
+public class AdversarialCodemaker {
+	/** The most codes a spec can have for the codemaker to answer without a wait. */
+	public static final long MAX_CODES = 1 << 22;
+
+	private final MastermindController control;
+	private final int[] candidates;
+	private final int[] counts;
+	private final int solved;
+	private final Random random = new Random();
+	private int count;
+	// the last guess answered and the secret picked for it, so asking again gets the same secret
+	private int lastGuess = -1;
+	private int lastSecret;
+
+	/**
+	 * This is the constructor for the codemaker.
+	 *
+	 * It starts with every code of the controller's
+	 * spec still possible.
+	 *
+	 * @param control The MastermindController of the game
+	 * @throws IllegalStateException When the spec has too many codes
+	 */
+	public AdversarialCodemaker(MastermindController control) {
+		MastermindSpec spec = control.getSpec();
+		if (!supports(spec)) {
+			throw new IllegalStateException(spec + " has too many codes for an adversarial game");
+		}
+		this.control = control;
+		this.candidates = control.getPackedScorer().allCodes();
+		this.count = candidates.length;
+		this.solved = MastermindScorer.feedback(spec.getPegs(), 0);
+		this.counts = new int[solved + 1];
+	}
+
+	/**
+	 * Checks if a spec is small enough for an adversarial
+	 * game, meaning its codes pack into an int and it has
+	 * at most MAX_CODES of them.
+	 *
+	 * @param spec A MastermindSpec
+	 * @return Whether an AdversarialCodemaker can be made for the spec
+	 */
+	public static boolean supports(MastermindSpec spec) {
+		return spec.getPegs() <= PackedScorer.MAX_PEGS && spec.codeCount() <= MAX_CODES;
+	}
+
+	/**
+	 * Answers a guess by keeping only the codes that share
+	 * the most common feedback, and picks one of them as
+	 * the secret for now. The guess is only answered as
+	 * solved when no other code is left. Asking about
+	 * the last guess again gets the same secret back.
+	 *
+	 * @param guess The packed guess that was played
+	 * @return The packed secret, which gives the guess the chosen feedback
+	 */
+	public synchronized int respond(int guess) {
+		if (guess == lastGuess) {
+			return lastSecret;
+		}
+		Arrays.fill(counts, 0);
+		control.countPartitions(guess, candidates, count, counts);
+		int feedback = solved;
+		for (int f = 0; f < solved; f++) {
+			if (counts[f] > 0 && (feedback == solved || counts[f] > counts[feedback])) {
+				feedback = f;
+			}
+		}
+		count = control.filter(guess, feedback, candidates, count);
+		lastGuess = guess;
+		lastSecret = candidates[random.nextInt(count)];
+		return lastSecret;
+	}
+
+	/**
+	 * Get how many codes still fit every feedback given.
+	 *
+	 * @return The number of codes
+	 */
+	public synchronized int remaining() {
+		return count;
+	}
+}
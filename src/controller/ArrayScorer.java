@@ -0,0 +1,48 @@
+package controller;
+
+import model.MastermindSpec;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file scores codes that are too long
+ * to pack (more than 16 pegs). It works on the color
+ * characters directly and keeps the per-color counts in
+ * an int array.
+ *
+ */
+public final class ArrayScorer extends MastermindScorer {
+
+	/**
+	 * This is the constructor for an array scorer.
+	 *
+	 * @param spec The MastermindSpec of the codes to score
+	 */
+	public ArrayScorer(MastermindSpec spec) {
+		super(spec);
+	}
+
+	@Override
+	public int score(CharSequence secret, CharSequence guess) {
+		int colors = spec.getColors();
+		// the first half counts the secret's colors, the second half the guess's
+		int[] counts = new int[2 * colors];
+		int black = 0;
+		for (int i = 0; i < secret.length(); i++) {
+			char s = secret.charAt(i);
+			char g = guess.charAt(i);
+			if (s == g) {
+				black++;
+			} else {
+				counts[spec.colorIndex(s)]++;
+				counts[colors + spec.colorIndex(g)]++;
+			}
+		}
+		int white = 0;
+		for (int c = 0; c < colors; c++) {
+			white += Math.min(counts[c], counts[colors + c]);
+		}
+		return feedback(black, white);
+	}
+}
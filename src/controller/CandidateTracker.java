@@ -0,0 +1,167 @@
+package controller;
+
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import model.MastermindSpec;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file keeps track of which codes
+ * are still consistent with the feedback a game has
+ * received so far. It holds one bit per code rank
+ * (see PackedScorer.rank), so the classic game needs
+ * 1296 bits. Each new feedback only visits the codes
+ * that are still set and clears the ones that would
+ * have scored differently, so an update costs time in
+ * proportion to the candidates left rather than to the
+ * whole code space times the guesses played.
+ *
+ */
+public class CandidateTracker {
+	/** The most code ranks a spec can have for the tracker to update without a wait. */
+	public static final long MAX_CODES = 1 << 22;
+
+	private final MastermindController control;
+	private final PackedScorer scorer;
+	private final BitSet bits;
+	private int remaining;
+
+	/**
+	 * This is the constructor for the tracker.
+	 *
+	 * It starts with every code of the controller's
+	 * spec as a candidate.
+	 *
+	 * @param control The MastermindController of the game to track
+	 * @throws IllegalStateException When the spec has too many codes to rank
+	 */
+	public CandidateTracker(MastermindController control) {
+		MastermindSpec spec = control.getSpec();
+		if (!supports(spec)) {
+			throw new IllegalStateException(spec + " has too many codes to track");
+		}
+		this.control = control;
+		this.scorer = control.getPackedScorer();
+		int ranks = (int) Math.pow(spec.getColors(), spec.getPegs());
+		this.bits = new BitSet(ranks);
+		if (spec.allowsDuplicates()) {
+			bits.set(0, ranks);
+		} else {
+			for (int code : scorer.allCodes()) {
+				bits.set(scorer.rank(code));
+			}
+		}
+		this.remaining = bits.cardinality();
+	}
+
+	/**
+	 * Checks if a spec is small enough to track,
+	 * meaning its codes pack into an int and it has
+	 * at most MAX_CODES ranks. The views update the
+	 * tracker on their own thread, so a bigger spec
+	 * would hold up the game.
+	 *
+	 * @param spec A MastermindSpec
+	 * @return Whether a CandidateTracker can be made for the spec
+	 */
+	public static boolean supports(MastermindSpec spec) {
+		return spec.getPegs() <= PackedScorer.MAX_PEGS
+				&& Math.pow(spec.getColors(), spec.getPegs()) <= MAX_CODES;
+	}
+
+	/**
+	 * Takes in the feedback for a guess and clears every
+	 * candidate that would have given different feedback.
+	 *
+	 * @param guess The packed guess that was played
+	 * @param feedback The packed feedback it got
+	 * @return How many candidates are left
+	 */
+	public int update(int guess, int feedback) {
+		for (int rank = bits.nextSetBit(0); rank >= 0; rank = bits.nextSetBit(rank + 1)) {
+			if (control.scoreCodes(scorer.unrank(rank), guess) != feedback) {
+				bits.clear(rank);
+				remaining--;
+			}
+		}
+		return remaining;
+	}
+
+	/**
+	 * Takes in the feedback for a guess as the views see it.
+	 *
+	 * @param guess The guess that was played, already validated
+	 * @param rightPlace The right color right place count it got
+	 * @param wrongPlace The right color wrong place count it got
+	 * @return How many candidates are left
+	 */
+	public int update(String guess, int rightPlace, int wrongPlace) {
+		return update(scorer.encode(guess), MastermindScorer.feedback(rightPlace, wrongPlace));
+	}
+
+	/**
+	 * Get how many codes are still consistent with the feedback.
+	 *
+	 * @return The number of candidates
+	 */
+	public int remaining() {
+		return remaining;
+	}
+
+	/**
+	 * Checks if a code is still consistent with the feedback.
+	 *
+	 * @param code A packed code
+	 * @return Whether the code is a candidate
+	 */
+	public boolean contains(int code) {
+		return bits.get(scorer.rank(code));
+	}
+
+	/**
+	 * Goes through the packed candidates in rank order.
+	 *
+	 * The iterator reads the live set, so it should not
+	 * be used across an update.
+	 *
+	 * @return An iterator over the packed candidates
+	 */
+	public PrimitiveIterator.OfInt iterator() {
+		return new PrimitiveIterator.OfInt() {
+			private int next = bits.nextSetBit(0);
+
+			@Override
+			public boolean hasNext() {
+				return next >= 0;
+			}
+
+			@Override
+			public int nextInt() {
+				if (next < 0) {
+					throw new NoSuchElementException();
+				}
+				int code = scorer.unrank(next);
+				next = bits.nextSetBit(next + 1);
+				return code;
+			}
+		};
+	}
+
+	/**
+	 * Get the packed candidates in rank order.
+	 *
+	 * @return A new array of the packed candidates
+	 */
+	public int[] toArray() {
+		int[] codes = new int[remaining];
+		int n = 0;
+		for (int rank = bits.nextSetBit(0); rank >= 0; rank = bits.nextSetBit(rank + 1)) {
+			codes[n++] = scorer.unrank(rank);
+		}
+		return codes;
+	}
+}
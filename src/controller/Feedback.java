@@ -0,0 +1,118 @@
+package controller;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import model.MastermindSpec;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file holds the feedback for one
+ * guess: how many pegs are the right color in the right
+ * place (black), how many are the right color in the
+ * wrong place (white), and whether the guess solved the
+ * game. Feedback never changes once it is made, and
+ * there are only a few possible values for each number
+ * of pegs, so they are made once per number of pegs and
+ * shared; of never allocates after the first call.
+ *
+ */
+public final class Feedback {
+	// the shared feedback for each number of pegs, indexed by packed feedback
+	private static final AtomicReferenceArray<Feedback[]> POOLS =
+			new AtomicReferenceArray<>(MastermindSpec.MAX_PEGS + 1);
+
+	private final int black;
+	private final int white;
+	private final boolean solved;
+
+	/**
+	 * This is the constructor for feedback, only
+	 * used to fill the pools.
+	 */
+	private Feedback(int black, int white, boolean solved) {
+		this.black = black;
+		this.white = white;
+		this.solved = solved;
+	}
+
+	/**
+	 * Get the shared Feedback for packed feedback.
+	 *
+	 * @param pegs The number of pegs in the game
+	 * @param feedback The packed feedback (see MastermindScorer.feedback)
+	 * @return The Feedback
+	 */
+	public static Feedback of(int pegs, int feedback) {
+		Feedback[] pool = POOLS.get(pegs);
+		if (pool == null) {
+			pool = new Feedback[MastermindScorer.feedback(pegs, 0) + 1];
+			for (int black = 0; black <= pegs; black++) {
+				for (int white = 0; black + white <= pegs; white++) {
+					pool[MastermindScorer.feedback(black, white)] = new Feedback(black, white, black == pegs);
+				}
+			}
+			// two threads may both build a pool, the first one stored wins
+			if (!POOLS.compareAndSet(pegs, null, pool)) {
+				pool = POOLS.get(pegs);
+			}
+		}
+		return pool[feedback];
+	}
+
+	/**
+	 * Get how many pegs are the right color in the right place.
+	 *
+	 * @return The black count
+	 */
+	public int getBlack() {
+		return black;
+	}
+
+	/**
+	 * Get how many pegs are the right color in the wrong place.
+	 *
+	 * @return The white count
+	 */
+	public int getWhite() {
+		return white;
+	}
+
+	/**
+	 * Checks if the guess matched the secret.
+	 *
+	 * @return Whether every peg was right
+	 */
+	public boolean isSolved() {
+		return solved;
+	}
+
+	/**
+	 * Get the feedback packed into an int.
+	 *
+	 * @return The packed feedback (see MastermindScorer.feedback)
+	 */
+	public int getPacked() {
+		return MastermindScorer.feedback(black, white);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof Feedback)) {
+			return false;
+		}
+		Feedback other = (Feedback) obj;
+		return black == other.black && white == other.white && solved == other.solved;
+	}
+
+	@Override
+	public int hashCode() {
+		return getPacked() * 2 + (solved ? 1 : 0);
+	}
+
+	@Override
+	public String toString() {
+		return black + " " + white;
+	}
+}
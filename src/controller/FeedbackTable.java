@@ -0,0 +1,174 @@
+package controller;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import model.MastermindSpec;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file holds the precomputed feedback
+ * for every pair of codes in the classic game (4 pegs out
+ * of "rgbypo", 1296 codes). Each pair takes up one byte
+ * holding the packed feedback from PackedScorer, so
+ * the whole matrix is about 1.6 MB. Codes are turned into
+ * a row or column by a small rank lookup, which makes a
+ * score query two array reads plus the matrix read.
+ * The table is built in parallel the first time it is used.
+ *
+ */
+public final class FeedbackTable {
+	/** The number of codes in the classic game. */
+	public static final int CODES = 1296;
+
+	private static final int RANK_SLOTS = 1 << (MastermindSpec.CLASSIC.getPegs() * PackedScorer.PEG_BITS);
+
+	private final int[] codes;
+	private final short[] ranks;
+	private final byte[] feedback;
+
+	/**
+	 * This holder is only loaded (and so the table
+	 * only built) the first time classic() is called.
+	 */
+	private static class Holder {
+		static final FeedbackTable CLASSIC = new FeedbackTable();
+	}
+
+	/**
+	 * This is the constructor for the table.
+	 *
+	 * It lists every code by rank, then fills one
+	 * row of the matrix per secret, with the rows
+	 * spread across all cores.
+	 */
+	private FeedbackTable() {
+		codes = PackedScorer.CLASSIC.allCodes();
+		ranks = new short[RANK_SLOTS];
+		Arrays.fill(ranks, (short) -1);
+		for (int rank = 0; rank < CODES; rank++) {
+			ranks[codes[rank]] = (short) rank;
+		}
+
+		feedback = new byte[CODES * CODES];
+		IntStream.range(0, CODES).parallel().forEach(secret -> {
+			int row = secret * CODES;
+			int secretCode = codes[secret];
+			for (int guess = 0; guess < CODES; guess++) {
+				feedback[row + guess] = (byte) PackedScorer.CLASSIC.score(secretCode, codes[guess]);
+			}
+		});
+	}
+
+	/**
+	 * Get the shared table for the classic game,
+	 * building it on the first call.
+	 *
+	 * @return The classic feedback table
+	 */
+	public static FeedbackTable classic() {
+		return Holder.CLASSIC;
+	}
+
+	/**
+	 * Looks up the feedback for a pair of packed codes.
+	 *
+	 * @param secret The packed secret code
+	 * @param guess The packed guess
+	 * @return The packed feedback, the same as PackedScorer.score would return
+	 */
+	public int score(int secret, int guess) {
+		return feedback[ranks[secret] * CODES + ranks[guess]] & 0xFF;
+	}
+
+	/**
+	 * Looks up the feedback for a pair of code ranks.
+	 *
+	 * @param secretRank The rank of the secret code
+	 * @param guessRank The rank of the guess
+	 * @return The packed feedback
+	 */
+	public int scoreRanks(int secretRank, int guessRank) {
+		return feedback[secretRank * CODES + guessRank] & 0xFF;
+	}
+
+	/**
+	 * Get the rank (0 to CODES-1) of a packed code.
+	 *
+	 * @param code A packed code
+	 * @return The rank of the code
+	 */
+	public int rank(int code) {
+		return ranks[code];
+	}
+
+	/**
+	 * Get the packed code with the given rank.
+	 *
+	 * @param rank The rank of a code
+	 * @return The packed code
+	 */
+	public int code(int rank) {
+		return codes[rank];
+	}
+
+	/**
+	 * Get the number of bytes the table holds on to.
+	 *
+	 * @return The size of the table's arrays in bytes
+	 */
+	public long sizeInBytes() {
+		return (long) feedback.length + 2L * ranks.length + 4L * codes.length;
+	}
+
+	/**
+	 * Prints a memory and latency report comparing
+	 * table lookups with on-the-fly scoring.
+	 *
+	 * @param args Optionally, the number of lookups to time (default 50000000)
+	 */
+	public static void main(String[] args) {
+		int lookups = args.length > 0 ? Integer.parseInt(args[0]) : 50_000_000;
+
+		long start = System.nanoTime();
+		FeedbackTable table = classic();
+		long buildNanos = System.nanoTime() - start;
+
+		// random pairs, chosen up front so the timed loops only score
+		Random rand = new Random(42);
+		int[] pairs = new int[1 << 16];
+		for (int i = 0; i < pairs.length; i++) {
+			pairs[i] = table.code(rand.nextInt(CODES));
+		}
+		int mask = pairs.length - 1;
+
+		long sink = 0;
+		for (int round = 0; round < 3; round++) { // the last round is the one reported
+			start = System.nanoTime();
+			for (int i = 0; i < lookups; i++) {
+				sink += PackedScorer.CLASSIC.score(pairs[i & mask], pairs[(i + 1) & mask]);
+			}
+			long scoreNanos = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			for (int i = 0; i < lookups; i++) {
+				sink += table.score(pairs[i & mask], pairs[(i + 1) & mask]);
+			}
+			long tableNanos = System.nanoTime() - start;
+
+			if (round == 2) {
+				System.out.printf("table build:       %.1f ms (%d cores)%n",
+						buildNanos / 1e6, Runtime.getRuntime().availableProcessors());
+				System.out.printf("table memory:      %.2f MB%n", table.sizeInBytes() / 1e6);
+				System.out.printf("on-the-fly score:  %.2f ns/op%n", (double) scoreNanos / lookups);
+				System.out.printf("table lookup:      %.2f ns/op%n", (double) tableNanos / lookups);
+			}
+		}
+		if (sink == 42) {
+			System.out.println(); // keeps the loops from being optimized away
+		}
+	}
+}
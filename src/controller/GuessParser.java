@@ -0,0 +1,139 @@
+package controller;
+
+import model.MastermindSpec;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file checks raw guesses against a
+ * spec without throwing. A guess is read once, left to
+ * right, looking each character up in the spec's color
+ * table (see MastermindSpec.colorIndex), and comes out
+ * either as a packed code or as a small error code. It
+ * doesn't allocate, so bad input costs no more than good
+ * input. The error messages are built once per parser,
+ * and the exception-throwing checks of the controller
+ * are wrappers over this class.
+ *
+ */
+public final class GuessParser {
+	/** The guess is legal. */
+	public static final int VALID = 0;
+	/** The guess has the wrong number of pegs. */
+	public static final int ILLEGAL_LENGTH = 1;
+	/** The guess has a character that isn't one of the spec's colors. */
+	public static final int ILLEGAL_COLOR = 2;
+
+	private final MastermindSpec spec;
+	private final int pegs;
+	private final String lengthMessage;
+	private final String colorMessage;
+
+	/**
+	 * This is the constructor for a parser.
+	 *
+	 * @param spec The MastermindSpec guesses must follow
+	 */
+	public GuessParser(MastermindSpec spec) {
+		this.spec = spec;
+		this.pegs = spec.getPegs();
+		this.lengthMessage = "Guess had an invalid length\n"
+				+ "(Your guess must be " + pegs + " characters long)";
+		StringBuilder colors = new StringBuilder();
+		for (int i = 0; i < spec.getColors(); i++) {
+			if (i > 0) {
+				colors.append(", ");
+			}
+			colors.append('\'').append(spec.colorChar(i)).append('\'');
+		}
+		this.colorMessage = "One or more guess colors were invalid.\n"
+				+ "(The valid colors are: " + colors + ").";
+	}
+
+	/**
+	 * Checks a guess.
+	 *
+	 * @param guess A guess as the user typed it
+	 * @return VALID, ILLEGAL_LENGTH or ILLEGAL_COLOR
+	 */
+	public int validate(CharSequence guess) {
+		if (guess.length() != pegs) {
+			return ILLEGAL_LENGTH;
+		}
+		for (int i = 0; i < pegs; i++) {
+			if (spec.colorIndex(guess.charAt(i)) < 0) {
+				return ILLEGAL_COLOR;
+			}
+		}
+		return VALID;
+	}
+
+	/**
+	 * Checks a guess and packs it into an int code
+	 * (see PackedScorer) in the same pass.
+	 *
+	 * The code is returned in the low 32 bits of a long
+	 * and is never negative as a long, so a negative
+	 * result is always an error; see error.
+	 *
+	 * @param guess A guess as the user typed it
+	 * @return The packed code, or minus ILLEGAL_LENGTH or ILLEGAL_COLOR
+	 * @throws IllegalStateException When the spec has too many pegs for packed int codes
+	 */
+	public long parse(CharSequence guess) {
+		if (pegs > PackedScorer.MAX_PEGS) {
+			throw new IllegalStateException(spec + " has too many pegs for packed int codes");
+		}
+		if (guess.length() != pegs) {
+			return -ILLEGAL_LENGTH;
+		}
+		int code = 0;
+		for (int i = 0; i < pegs; i++) {
+			int color = spec.colorIndex(guess.charAt(i));
+			if (color < 0) {
+				return -ILLEGAL_COLOR;
+			}
+			code |= color << (i * PackedScorer.PEG_BITS);
+		}
+		return code & 0xFFFFFFFFL;
+	}
+
+	/**
+	 * Get the error code of a parse result.
+	 *
+	 * @param parsed A result of parse
+	 * @return VALID when it is a packed code, or the error code
+	 */
+	public static int error(long parsed) {
+		return parsed < 0 ? (int) -parsed : VALID;
+	}
+
+	/**
+	 * Get the message the user should see for an error.
+	 *
+	 * @param error ILLEGAL_LENGTH or ILLEGAL_COLOR
+	 * @return The message, which may span lines
+	 */
+	public String getMessage(int error) {
+		return error == ILLEGAL_LENGTH ? lengthMessage : colorMessage;
+	}
+
+	/**
+	 * Throws the exception that matches an error code,
+	 * for callers that still want exceptions. Does nothing
+	 * for VALID.
+	 *
+	 * @param error VALID, ILLEGAL_LENGTH or ILLEGAL_COLOR
+	 * @throws MastermindIllegalColorException When the error is ILLEGAL_COLOR
+	 * @throws MastermindIllegalLengthException When the error is ILLEGAL_LENGTH
+	 */
+	public void throwFor(int error) throws MastermindIllegalColorException, MastermindIllegalLengthException {
+		if (error == ILLEGAL_LENGTH) {
+			throw new MastermindIllegalLengthException(lengthMessage);
+		}
+		if (error == ILLEGAL_COLOR) {
+			throw new MastermindIllegalColorException(colorMessage);
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package controller;
+
+import model.MastermindSpec;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file scores codes of 9 to 16 pegs
+ * packed into a long, with 4 bits per peg just like
+ * PackedScorer. A color can now show up 16 times, which
+ * doesn't fit a 4 bit count, so the per-color counts are
+ * kept as 8 bit fields spread over two longs (colors 0-7
+ * and colors 8-15). Scoring packed codes does not allocate.
+ *
+ */
+public final class LongPackedScorer extends MastermindScorer {
+	/** The most pegs a packed long code can hold. */
+	public static final int MAX_PEGS = 16;
+
+	private static final int PEG_BITS = PackedScorer.PEG_BITS;
+	private static final int PEG_MASK = (1 << PEG_BITS) - 1;
+	private static final int COUNT_BITS = 8;
+
+	private final int pegs;
+
+	/**
+	 * This is the constructor for a packed long scorer.
+	 *
+	 * @param spec The MastermindSpec of the codes to score
+	 * @throws IllegalArgumentException When the spec has more than MAX_PEGS pegs
+	 */
+	public LongPackedScorer(MastermindSpec spec) {
+		super(spec);
+		if (spec.getPegs() > MAX_PEGS) {
+			throw new IllegalArgumentException("a packed long code holds at most " + MAX_PEGS + " pegs");
+		}
+		this.pegs = spec.getPegs();
+	}
+
+	/**
+	 * Packs a code into a long.
+	 *
+	 * @param code A CharSequence of color characters
+	 * @return The packed code
+	 */
+	public long encode(CharSequence code) {
+		long packed = 0;
+		for (int i = 0; i < pegs; i++) {
+			packed |= (long) spec.colorIndex(code.charAt(i)) << (i * PEG_BITS);
+		}
+		return packed;
+	}
+
+	/**
+	 * Packs a code stored as a character array into a long.
+	 *
+	 * @param code A char[] of color characters
+	 * @return The packed code
+	 */
+	public long encode(char[] code) {
+		long packed = 0;
+		for (int i = 0; i < pegs; i++) {
+			packed |= (long) spec.colorIndex(code[i]) << (i * PEG_BITS);
+		}
+		return packed;
+	}
+
+	/**
+	 * Scores a packed guess against a packed secret in one pass.
+	 *
+	 * @param secret The packed secret code
+	 * @param guess The packed guess
+	 * @return The packed feedback
+	 */
+	public int score(long secret, long guess) {
+		int black = 0;
+		long secretLow = 0;
+		long secretHigh = 0;
+		long guessLow = 0;
+		long guessHigh = 0;
+		for (int i = 0; i < pegs; i++) {
+			int shift = i * PEG_BITS;
+			int s = (int) (secret >>> shift) & PEG_MASK;
+			int g = (int) (guess >>> shift) & PEG_MASK;
+			if (s == g) {
+				black++;
+			} else {
+				// colors 8-15 wrap around into the high longs
+				if (s < 8) {
+					secretLow += 1L << (s * COUNT_BITS);
+				} else {
+					secretHigh += 1L << ((s - 8) * COUNT_BITS);
+				}
+				if (g < 8) {
+					guessLow += 1L << (g * COUNT_BITS);
+				} else {
+					guessHigh += 1L << ((g - 8) * COUNT_BITS);
+				}
+			}
+		}
+		return feedback(black, sumOfMins(secretLow, guessLow) + sumOfMins(secretHigh, guessHigh));
+	}
+
+	/**
+	 * Adds up the smaller of each pair of 8 bit counts.
+	 *
+	 * @param a Eight 8 bit counts
+	 * @param b Eight 8 bit counts
+	 * @return The sum of the per-field minimums
+	 */
+	private static int sumOfMins(long a, long b) {
+		int sum = 0;
+		while (a != 0 && b != 0) {
+			sum += Math.min((int) a & 0xFF, (int) b & 0xFF);
+			a >>>= COUNT_BITS;
+			b >>>= COUNT_BITS;
+		}
+		return sum;
+	}
+
+	@Override
+	public int score(CharSequence secret, CharSequence guess) {
+		return score(encode(secret), encode(guess));
+	}
+}
@@ -1,7 +1,8 @@
 package controller;
-import java.util.HashSet;
-
+import metrics.GameMetrics;
+import model.GameState;
 import model.MastermindModel;
+import model.MastermindSpec;
 
 /**
  * 
@@ -11,11 +12,25 @@ import model.MastermindModel;
  * controller of the MVC setup.
  * This means it deals with the 
  * functional data handling.
+ * Scoring keeps nothing between calls,
+ * so one controller can score guesses
+ * from any number of threads, and the
+ * GameState methods work on any game of
+ * the controller's spec. In an adversarial
+ * game each guess also changes the secret,
+ * so those guesses are answered one at a
+ * time, in whatever order they come.
  */
 public class MastermindController {
 	// Instance fields
-    private MastermindModel modelCopy;
-    public MastermindModel model;
+    public final MastermindModel model;
+    private final MastermindSpec spec;
+    private final MastermindScorer scorer;
+    private final PackedScorer packed;
+    private final GuessParser parser;
+    private FeedbackTable table;
+    // picks the solution again after each guess in an adversarial game
+    private final AdversarialCodemaker adversary;
 	/**
 	 * This is the constructor for the controller.
 	 * 
@@ -27,7 +42,33 @@ public class MastermindController {
 	 * @param model A MastermindModel object with the solution
 	 */
 	public MastermindController(MastermindModel model) {
+		this(model, false);
+	}
+	
+	/**
+	 * This constructor also lets the controller answer
+	 * scoring queries from the precomputed FeedbackTable.
+	 * 
+	 * The table is shared by every controller and is
+	 * built the first time any controller asks for it.
+	 * 
+	 * @param model A MastermindModel object with the solution
+	 * @param useFeedbackTable Whether to score by table lookup instead of on the fly
+	 * @throws IllegalStateException When the model is adversarial and its spec has too many codes (see AdversarialCodemaker.supports)
+	 */
+	public MastermindController(MastermindModel model, boolean useFeedbackTable) {
 		this.model = model;
+		this.spec = model.getSpec();
+		this.scorer = MastermindScorer.forSpec(spec);
+		this.packed = scorer instanceof PackedScorer ? (PackedScorer) scorer : null;
+		this.parser = new GuessParser(spec);
+		if (useFeedbackTable) {
+			if (!spec.equals(MastermindSpec.CLASSIC)) {
+				throw new IllegalArgumentException("the feedback table only covers the classic game, not " + spec);
+			}
+			table = FeedbackTable.classic();
+		}
+		this.adversary = model.isAdversarial() ? new AdversarialCodemaker(this) : null;
 	}
  
 	/**
@@ -39,9 +80,10 @@ public class MastermindController {
      * and in the right position and returns true or false. 
      * It will throw a MastermindIllegalColorException 
      * if it includes any letter that isn't one of:
-	 * 'r', 'g', 'b', 'y', 'o', or 'p'. 
-	 * It will throw a MastermindIllegalLengthException 
-	 * if it doesn't have a length of exactly 4.
+	 * the spec's colors ('r', 'g', 'b', 'y', 'o', or 'p'
+	 * in the classic game).
+	 * It will throw a MastermindIllegalLengthException
+	 * if its length isn't the spec's number of pegs.
 	 * 
 	 * @param guess A String representing an attempt input by the user
 	 * @return Whether the guess matches the solution in the model or not
@@ -49,11 +91,7 @@ public class MastermindController {
 	 * @throws MastermindIllegalLengthException When the guess is an invalid length
 	 */
     public boolean isCorrect(String guess) throws MastermindIllegalColorException, MastermindIllegalLengthException {
-    	checkExceptions(guess);
-    	
-    	if (getRightColorRightPlace(guess) == 4) {
-    		return true;
-    	} return false;
+    	return MastermindScorer.blacks(feedbackFor(guess)) == spec.getPegs();
     }
 
     /**
@@ -67,9 +105,10 @@ public class MastermindController {
      * an integer describing how many are.
      * It will throw a MastermindIllegalColorException 
      * if it includes any letter that isn't one of:
-	 * 'r', 'g', 'b', 'y', 'o', or 'p'. 
+	 * the spec's colors ('r', 'g', 'b', 'y', 'o', or 'p'
+	 * in the classic game).
 	 * It will throw a MastermindIllegalLengthException
-	 * if it doesn't have a length of exactly 4.
+	 * if its length isn't the spec's number of pegs.
      * 
      * @param guess A String representing an attempt input by the user
 	 * @return Whether the guess matches the solution in the model or not
@@ -77,15 +116,7 @@ public class MastermindController {
 	 * @throws MastermindIllegalLengthException When the guess is an invalid length
      */
     public int getRightColorRightPlace(String guess) throws MastermindIllegalColorException, MastermindIllegalLengthException { 
-    	checkExceptions(guess);
-    	
-    	int counter = 0;
-    	for (int i = 0; i < 4; i++) {
-    		if (guess.toCharArray()[i] == model.getColorAt(i)) {
-    			counter++;
-    		}
-    	}
-    	return counter;
+    	return MastermindScorer.blacks(feedbackFor(guess));
     }
     
     /**
@@ -95,14 +126,14 @@ public class MastermindController {
      * 
      * Takes in a String guess parameter. Returns an integer
      * describing how many color characters are the right 
-     * color but in the wrong position by subtracting those 
-     * of the right color and right place from those 
-     * contained in the model.
+     * color but in the wrong position, counting each peg
+     * of the solution at most once.
      * It will throw a MastermindIllegalColorException 
      * if it includes any letter that isn't one of:
-	 * 'r', 'g', 'b', 'y', 'o', or 'p'. 
+	 * the spec's colors ('r', 'g', 'b', 'y', 'o', or 'p'
+	 * in the classic game).
 	 * It will throw a MastermindIllegalLengthException
-	 * if it doesn't have a length of exactly 4.
+	 * if its length isn't the spec's number of pegs.
      * 
      * @param guess A String representing an attempt input by the user
 	 * @return Whether the guess matches the solution in the model or not
@@ -110,45 +141,361 @@ public class MastermindController {
 	 * @throws MastermindIllegalLengthException When the guess is an invalid length
      */
     public int getRightColorWrongPlace(String guess) throws MastermindIllegalColorException, MastermindIllegalLengthException {
-    	checkExceptions(guess);
-    	
-    	int rcrp = getRightColorRightPlace(guess);
-    	int counter = 0;
-    	String guess1 = "";
-    	String guess2 = "";
-    	
-    	// makes a copy of the model to avoid overwriting the original
-    	modelCopy = new MastermindModel(model);
-
-    	for (int i = 0; i < 4; i++) {
-    		for (int j = 0; j < 4; j++) {
-    			// checks for the right color right place for a column
-    			// and replaces the seen colors with '.' characters
-    			// to avoid double counting, incrementing the counter
-    			if (modelCopy.getCopy()[i] == guess.toCharArray()[i] && guess.toCharArray()[i] != '.') {
-    				modelCopy.getCopy()[i] = '.';
-    				guess1 = guess.substring(0, i);
-    				guess2 = guess.substring(i+1);
-    				guess = guess1 + "." + guess2;
-    				counter++;
-        		}
-    			
-    			// checks for the right color wrong place for the
-    			// current positions by seeing if any characters
-    			// in the guess are also in the model and replaces
-    			// the seen colors with '.' characters to avoid 
-    			// double counting, incrementing the counter
-				if (modelCopy.getCopy()[i] == guess.toCharArray()[j] && guess.toCharArray()[j] != '.') {
-					modelCopy.getCopy()[i] = '.';
-					guess1 = guess.substring(0, j);
-    				guess2 = guess.substring(j+1);
-    				guess = guess1 + "." + guess2;
-	    			counter++;
-	    		}
+    	return MastermindScorer.whites(feedbackFor(guess));
+    }
+    
+    /**
+     * Scores a guess against the model's solution.
+     * 
+     * This validates and scores the guess once and answers
+     * everything isCorrect, getRightColorRightPlace and
+     * getRightColorWrongPlace would. The Feedback is shared,
+     * not made for each call.
+     * It will throw a MastermindIllegalColorException 
+     * if it includes any letter that isn't one of
+	 * the spec's colors.
+	 * It will throw a MastermindIllegalLengthException
+	 * if its length isn't the spec's number of pegs.
+     * 
+     * @param guess A String representing an attempt input by the user
+     * @return The Feedback for the guess
+	 * @throws MastermindIllegalColorException When the guess has an invalid color
+	 * @throws MastermindIllegalLengthException When the guess is an invalid length
+     */
+    public Feedback score(String guess) throws MastermindIllegalColorException, MastermindIllegalLengthException {
+    	return Feedback.of(spec.getPegs(), feedbackFor(guess));
+    }
+    
+    /**
+     * Scores a guess against the secret of any game of the
+     * controller's spec, without touching the model.
+     * 
+     * The GameState never changes and an adversarial
+     * codemaker is never asked, so this can be called
+     * from any thread, for as many games at once as needed.
+     * 
+     * @param state The GameState to score against
+     * @param guess A String representing an attempt input by the user
+     * @return The Feedback for the guess
+	 * @throws MastermindIllegalColorException When the guess has an invalid color
+	 * @throws MastermindIllegalLengthException When the guess is an invalid length
+	 * @throws IllegalArgumentException When the game has another spec
+     */
+    public Feedback score(GameState state, String guess) throws MastermindIllegalColorException, MastermindIllegalLengthException {
+    	return Feedback.of(spec.getPegs(), feedbackFor(secretOf(state), guess));
+    }
+    
+    /**
+     * Scores a guess and plays it on a game.
+     * 
+     * Like score, this only reads the GameState; the
+     * guess goes into the new GameState it returns.
+     * 
+     * @param state The GameState to play on
+     * @param guess A String representing an attempt input by the user
+     * @return The GameState after the guess
+	 * @throws MastermindIllegalColorException When the guess has an invalid color
+	 * @throws MastermindIllegalLengthException When the guess is an invalid length
+	 * @throws IllegalArgumentException When the game has another spec
+     */
+    public GameState play(GameState state, String guess) throws MastermindIllegalColorException, MastermindIllegalLengthException {
+    	int feedback = feedbackFor(secretOf(state), guess);
+    	return state.played(guess, MastermindScorer.blacks(feedback), MastermindScorer.whites(feedback));
+    }
+    
+    private String secretOf(GameState state) {
+    	if (!state.getSpec().equals(spec)) {
+    		throw new IllegalArgumentException("a controller for " + spec + " can't score a game of " + state.getSpec());
+    	}
+    	return state.getSecret();
+    }
+    
+    /**
+     * Validates and scores a guess against the model's solution.
+     * 
+     * In an adversarial game the AdversarialCodemaker
+     * first picks the solution again.
+     * 
+     * @param guess A String representing an attempt input by the user
+     * @return The packed feedback
+	 * @throws MastermindIllegalColorException When the guess has an invalid color
+	 * @throws MastermindIllegalLengthException When the guess is an invalid length
+     */
+    private int feedbackFor(String guess) throws MastermindIllegalColorException, MastermindIllegalLengthException {
+    	if (packed == null) {
+    		return feedbackFor(model.getSolution(), guess);
+    	}
+    	long parsed = parser.parse(guess);
+    	if (parsed < 0) {
+    		parser.throwFor(rejected(GuessParser.error(parsed)));
+    	}
+    	return feedbackFor((int) parsed);
+    }
+    
+    /**
+     * Scores a packed guess against the model's solution,
+     * counting it in the GameMetrics.
+     * 
+     * In an adversarial game the AdversarialCodemaker
+     * first picks the solution again.
+     * 
+     * @param guess A packed guess
+     * @return The packed feedback
+     */
+    private int feedbackFor(int guess) {
+    	int secret;
+    	if (adversary != null) {
+    		// the model keeps the secret picked for the last guess answered
+    		synchronized (adversary) {
+    			secret = adversary.respond(guess);
+    			model.setSolution(packed.decode(secret));
+    		}
+    	} else {
+    		secret = packed.encode(model.getSolution());
+    	}
+    	GameMetrics metrics = GameMetrics.get();
+    	boolean timed = metrics.sampleLatency();
+    	long start = timed ? System.nanoTime() : 0;
+    	int feedback = scoreCodes(secret, guess);
+    	metrics.guessScored(timed ? System.nanoTime() - start : -1);
+    	return feedback;
+    }
+    
+    /**
+     * Validates and scores a guess against a secret.
+     * 
+     * The guess is checked and packed in one pass by the
+     * GuessParser when the spec has packed int codes.
+     * 
+     * @param secret The secret's color characters
+     * @param guess A String representing an attempt input by the user
+     * @return The packed feedback
+	 * @throws MastermindIllegalColorException When the guess has an invalid color
+	 * @throws MastermindIllegalLengthException When the guess is an invalid length
+     */
+    private int feedbackFor(String secret, String guess) throws MastermindIllegalColorException, MastermindIllegalLengthException {
+    	GameMetrics metrics = GameMetrics.get();
+    	boolean timed = metrics.sampleLatency();
+    	long start = timed ? System.nanoTime() : 0;
+    	int feedback;
+    	if (packed != null) {
+    		long parsed = parser.parse(guess);
+    		if (parsed < 0) {
+    			parser.throwFor(rejected(GuessParser.error(parsed)));
     		}
+    		feedback = scoreCodes(packed.encode(secret), (int) parsed);
+    	} else {
+    		parser.throwFor(rejected(parser.validate(guess)));
+    		feedback = scorer.score(secret, guess);
     	}
-    	// subtracts the right color right place count from the total count (rcrp + rcwp)
-    	return counter-rcrp; 	
+    	metrics.guessScored(timed ? System.nanoTime() - start : -1);
+    	return feedback;
+    }
+    
+    /**
+     * Checks a guess without throwing.
+     * 
+     * This is the cheap way to turn away bad input,
+     * see GuessParser.getMessage for what to tell the user.
+     * 
+     * @param guess A String representing an attempt input by the user
+     * @return GuessParser.VALID, GuessParser.ILLEGAL_LENGTH or GuessParser.ILLEGAL_COLOR
+     */
+    public int validate(String guess) {
+    	return rejected(parser.validate(guess));
+    }
+    
+    /**
+     * Checks a guess and packs it in one pass, without throwing.
+     * 
+     * A guess that is turned away is counted in the
+     * GameMetrics. A packed guess can then be scored with
+     * scoreParsed, so input that is usually good is only
+     * read once.
+     * 
+     * @param guess A String representing an attempt input by the user
+     * @return The packed guess, or a negative value (see GuessParser.error)
+     * @throws IllegalStateException When the spec has too many pegs to pack into an int
+     */
+    public long parse(String guess) {
+    	long parsed = parser.parse(guess);
+    	if (parsed < 0) {
+    		rejected(GuessParser.error(parsed));
+    	}
+    	return parsed;
+    }
+    
+    /**
+     * Scores a guess packed by parse against the model's solution.
+     * 
+     * This is score without reading the guess again, and
+     * like score it counts the guess in the GameMetrics and
+     * has an adversarial game pick its solution again.
+     * 
+     * @param guess A packed guess from parse
+     * @return The Feedback for the guess
+     * @throws IllegalStateException When the spec has too many pegs to pack into an int
+     */
+    public Feedback scoreParsed(int guess) {
+    	getPackedScorer();
+    	return Feedback.of(spec.getPegs(), feedbackFor(guess));
+    }
+    
+    /**
+     * Counts a guess turned away in the GameMetrics.
+     * 
+     * @param error What GuessParser.validate said about the guess
+     * @return The same error
+     */
+    private int rejected(int error) {
+    	if (error == GuessParser.ILLEGAL_COLOR) {
+    		GameMetrics.get().invalidColor();
+    	} else if (error == GuessParser.ILLEGAL_LENGTH) {
+    		GameMetrics.get().invalidLength();
+    	}
+    	return error;
+    }
+    
+    /**
+     * Scores a packed guess against the model's solution.
+     * 
+     * Takes in a guess packed by PackedScorer.encode and
+     * returns the packed feedback for it. The guess is not
+     * validated, so this is meant for callers that already
+     * hold legal packed codes (such as solvers). It does
+     * not allocate. Only games of up to 8 pegs have
+     * packed int codes.
+     * 
+     * @param guess A packed guess
+     * @return The packed feedback (see MastermindScorer.blacks and MastermindScorer.whites)
+     */
+    public int scoreCode(int guess) {
+    	return scoreCodes(getSecretCode(), guess);
+    }
+    
+    /**
+     * Scores a packed guess against any packed secret.
+     * 
+     * This is a single array lookup when the controller
+     * was made with the feedback table, and is scored
+     * on the fly otherwise.
+     * 
+     * @param secret A packed secret code
+     * @param guess A packed guess
+     * @return The packed feedback
+     */
+    public int scoreCodes(int secret, int guess) {
+    	if (table != null) {
+    		return table.score(secret, guess);
+    	}
+    	return getPackedScorer().score(secret, guess);
+    }
+    
+    /**
+     * Scores one packed guess against many packed secrets.
+     * 
+     * See PackedScorer.scoreAll. With the feedback table
+     * each code is a lookup instead.
+     * 
+     * @param guess A packed guess
+     * @param codes The packed secrets to score it against
+     * @param count How many codes, from the start of the array, to score
+     * @param results Where to put the packed feedback for each code
+     */
+    public void scoreAll(int guess, int[] codes, int count, int[] results) {
+    	if (table != null) {
+    		for (int i = 0; i < count; i++) {
+    			results[i] = table.score(codes[i], guess);
+    		}
+    		return;
+    	}
+    	getPackedScorer().scoreAll(guess, codes, count, results);
+    }
+    
+    /**
+     * Counts how many packed secrets give each feedback for a guess.
+     * 
+     * See PackedScorer.countPartitions.
+     * 
+     * @param guess A packed guess
+     * @param codes The packed secrets to score it against
+     * @param count How many codes, from the start of the array, to score
+     * @param counts The count for each packed feedback, added to (not cleared)
+     * @return The largest count after adding
+     */
+    public int countPartitions(int guess, int[] codes, int count, int[] counts) {
+    	if (table != null) {
+    		int largest = 0;
+    		for (int i = 0; i < count; i++) {
+    			largest = Math.max(largest, ++counts[table.score(codes[i], guess)]);
+    		}
+    		return largest;
+    	}
+    	return getPackedScorer().countPartitions(guess, codes, count, counts);
+    }
+    
+    /**
+     * Keeps only the packed secrets that give the feedback for a guess.
+     * 
+     * See PackedScorer.filter.
+     * 
+     * @param guess A packed guess
+     * @param feedback The packed feedback to keep
+     * @param codes The packed secrets to filter, kept ones are moved to the front
+     * @param count How many codes, from the start of the array, to filter
+     * @return How many codes were kept
+     */
+    public int filter(int guess, int feedback, int[] codes, int count) {
+    	if (table != null) {
+    		int kept = 0;
+    		for (int i = 0; i < count; i++) {
+    			if (table.score(codes[i], guess) == feedback) {
+    				codes[kept++] = codes[i];
+    			}
+    		}
+    		return kept;
+    	}
+    	return getPackedScorer().filter(guess, feedback, codes, count);
+    }
+    
+    /**
+     * Get the model's solution as a packed code.
+     * 
+     * @return The packed solution
+     */
+    public int getSecretCode() {
+    	return getPackedScorer().encode(model.getSolution());
+    }
+    
+    /**
+     * Get the scorer for packed int codes of the model's spec.
+     * 
+     * @return The PackedScorer for the spec
+     * @throws IllegalStateException When the spec has too many pegs to pack into an int
+     */
+    public PackedScorer getPackedScorer() {
+    	if (packed == null) {
+    		throw new IllegalStateException(spec + " has too many pegs for packed int codes");
+    	}
+    	return packed;
+    }
+    
+    /**
+     * Get the parser that checks guesses for the model's spec.
+     * 
+     * @return The GuessParser
+     */
+    public GuessParser getParser() {
+    	return parser;
+    }
+    
+    /**
+     * Get the spec of the game the controller runs.
+     * 
+     * @return The model's MastermindSpec
+     */
+    public MastermindSpec getSpec() {
+    	return spec;
     }
     
     /**
@@ -157,35 +504,16 @@ public class MastermindController {
      * Takes in a String guess. Returns nothing.
      * It will throw a MastermindIllegalColorException 
      * if it includes any letter that isn't one of:
-	 * 'r', 'g', 'b', 'y', 'o', or 'p'. 
+	 * the spec's colors ('r', 'g', 'b', 'y', 'o', or 'p'
+	 * in the classic game).
 	 * It will throw a MastermindIllegalLengthException
-	 * if it doesn't have a length of exactly 4.
+	 * if its length isn't the spec's number of pegs.
      * 
      * @param guess A String representing an attempt input by the user
 	 * @throws MastermindIllegalColorException When the guess has an invalid color
 	 * @throws MastermindIllegalLengthException When the guess is an invalid length
      */
     public void checkExceptions(String guess) throws MastermindIllegalColorException, MastermindIllegalLengthException {
-    	if (guess.length() != 4) {
-    		throw new MastermindIllegalLengthException("Guess had an invalid length\n"
-    				+ "(Your guess must be 4 characters long)");
-    	}
-    	
-    	// creates a set of the legal colors
-    	HashSet<Character> colorChoices = new HashSet<>();
-		colorChoices.add('r');
-		colorChoices.add('g');
-		colorChoices.add('b');
-		colorChoices.add('p');
-		colorChoices.add('y');
-		colorChoices.add('o');
-		
-		// checks if any of the characters in guess aren't in the set of legal colors
-    	for (int i = 0; i<4; i++) {			
-			if (!colorChoices.contains(guess.toCharArray()[i])) {
-				throw new MastermindIllegalColorException("One or more guess colors were invalid.\n"
-						+ "(The valid colors are: 'r', 'g', 'b', 'y', 'p', 'o').");
-			}
-		}
+    	parser.throwFor(rejected(parser.validate(guess)));
     }
 }
\ No newline at end of file
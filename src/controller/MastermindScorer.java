@@ -0,0 +1,103 @@
+package controller;
+
+import model.MastermindSpec;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file is the base of the scoring
+ * core used by the controller. Each game spec gets the
+ * implementation that suits its size: PackedScorer packs
+ * codes of up to 8 pegs into an int, LongPackedScorer
+ * packs up to 16 pegs into a long, and ArrayScorer works
+ * on the color characters directly for anything larger.
+ * Whatever the implementation, feedback is packed into an
+ * int with the right color right place count shifted
+ * above the right color wrong place count.
+ *
+ */
+public abstract class MastermindScorer {
+	/** The number of bits the right color wrong place count takes up in packed feedback. */
+	public static final int FEEDBACK_BITS = 5;
+
+	private static final int WHITE_MASK = (1 << FEEDBACK_BITS) - 1;
+
+	protected final MastermindSpec spec;
+
+	/**
+	 * This is the constructor for a scorer.
+	 *
+	 * @param spec The MastermindSpec of the codes to score
+	 */
+	protected MastermindScorer(MastermindSpec spec) {
+		this.spec = spec;
+	}
+
+	/**
+	 * Picks the scorer specialized for the size of a spec.
+	 *
+	 * @param spec The MastermindSpec of the codes to score
+	 * @return A PackedScorer, LongPackedScorer or ArrayScorer
+	 */
+	public static MastermindScorer forSpec(MastermindSpec spec) {
+		if (spec.getPegs() <= PackedScorer.MAX_PEGS) {
+			return PackedScorer.forSpec(spec);
+		} else if (spec.getPegs() <= LongPackedScorer.MAX_PEGS) {
+			return new LongPackedScorer(spec);
+		}
+		return new ArrayScorer(spec);
+	}
+
+	/**
+	 * Get the spec this scorer was made for.
+	 *
+	 * @return The scorer's MastermindSpec
+	 */
+	public MastermindSpec getSpec() {
+		return spec;
+	}
+
+	/**
+	 * Scores a guess against a secret, both given as color characters.
+	 *
+	 * Both codes are expected to have been validated already.
+	 *
+	 * @param secret The secret's color characters
+	 * @param guess The guess's color characters
+	 * @return The packed feedback
+	 */
+	public abstract int score(CharSequence secret, CharSequence guess);
+
+	/**
+	 * Packs a right color right place count and a
+	 * right color wrong place count into feedback.
+	 *
+	 * @param black The right color right place count
+	 * @param white The right color wrong place count
+	 * @return The packed feedback
+	 */
+	public static int feedback(int black, int white) {
+		return (black << FEEDBACK_BITS) | white;
+	}
+
+	/**
+	 * Get the right color right place count from packed feedback.
+	 *
+	 * @param feedback The packed feedback
+	 * @return The right color right place count
+	 */
+	public static int blacks(int feedback) {
+		return feedback >>> FEEDBACK_BITS;
+	}
+
+	/**
+	 * Get the right color wrong place count from packed feedback.
+	 *
+	 * @param feedback The packed feedback
+	 * @return The right color wrong place count
+	 */
+	public static int whites(int feedback) {
+		return feedback & WHITE_MASK;
+	}
+}
@@ -0,0 +1,359 @@
+package controller;
+
+import model.MastermindSpec;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file scores codes of up to 8 pegs
+ * packed into an int, with 4 bits per peg (peg i lives
+ * in bits 4i to 4i+3) holding the index of its color in
+ * the spec. This is the representation the rest of the
+ * engine (tables, solvers) works with. Scoring packed
+ * codes does not allocate. The batch methods score one
+ * guess against a whole array of codes, comparing all
+ * pegs of a code at once with bit tricks on the packed
+ * int instead of looping over the pegs.
+ *
+ */
+public final class PackedScorer extends MastermindScorer {
+	/** The most pegs a packed int code can hold. */
+	public static final int MAX_PEGS = 8;
+	/** The number of bits each peg takes up in a packed code. */
+	public static final int PEG_BITS = 4;
+
+	/** The scorer for the classic game, shared by everything that plays it. */
+	public static final PackedScorer CLASSIC = new PackedScorer(MastermindSpec.CLASSIC);
+
+	private static final int PEG_MASK = (1 << PEG_BITS) - 1;
+
+	private final int pegs;
+	// a 1 in the lowest bit of every peg's nibble
+	private final int lowMask;
+
+	/**
+	 * This is the constructor for a packed scorer.
+	 *
+	 * @param spec The MastermindSpec of the codes to score
+	 * @throws IllegalArgumentException When the spec has more than MAX_PEGS pegs
+	 */
+	public PackedScorer(MastermindSpec spec) {
+		super(spec);
+		if (spec.getPegs() > MAX_PEGS) {
+			throw new IllegalArgumentException("a packed int code holds at most " + MAX_PEGS + " pegs");
+		}
+		this.pegs = spec.getPegs();
+		int mask = 0;
+		for (int i = 0; i < pegs; i++) {
+			mask |= 1 << (i * PEG_BITS);
+		}
+		this.lowMask = mask;
+	}
+
+	/**
+	 * Get the packed scorer for a spec, sharing
+	 * CLASSIC when the spec is the classic one.
+	 *
+	 * @param spec The MastermindSpec of the codes to score
+	 * @return The packed scorer
+	 */
+	public static PackedScorer forSpec(MastermindSpec spec) {
+		return spec.equals(MastermindSpec.CLASSIC) ? CLASSIC : new PackedScorer(spec);
+	}
+
+	/**
+	 * Packs a code into an int.
+	 *
+	 * The code is expected to have been validated already,
+	 * an unknown color corrupts the result.
+	 *
+	 * @param code A CharSequence of color characters
+	 * @return The packed code
+	 */
+	public int encode(CharSequence code) {
+		int packed = 0;
+		for (int i = 0; i < pegs; i++) {
+			packed |= spec.colorIndex(code.charAt(i)) << (i * PEG_BITS);
+		}
+		return packed;
+	}
+
+	/**
+	 * Packs a code stored as a character array into an int.
+	 *
+	 * @param code A char[] of color characters
+	 * @return The packed code
+	 */
+	public int encode(char[] code) {
+		int packed = 0;
+		for (int i = 0; i < pegs; i++) {
+			packed |= spec.colorIndex(code[i]) << (i * PEG_BITS);
+		}
+		return packed;
+	}
+
+	/**
+	 * Unpacks a code back into its color characters.
+	 *
+	 * @param code A packed code
+	 * @return The code as a String
+	 */
+	public String decode(int code) {
+		char[] chars = new char[pegs];
+		for (int i = 0; i < pegs; i++) {
+			chars[i] = spec.colorChar(colorAt(code, i));
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * Get the color index of the peg at position index.
+	 *
+	 * @param code A packed code
+	 * @param index The position of the peg
+	 * @return The color index of the peg
+	 */
+	public static int colorAt(int code, int index) {
+		return (code >>> (index * PEG_BITS)) & PEG_MASK;
+	}
+
+	/**
+	 * Get the rank of a packed code: its value as a base
+	 * getColors() number with peg 0 as the lowest digit.
+	 * Ranks run from 0 to getColors()^getPegs()-1, and are
+	 * only usable while that fits in an int.
+	 *
+	 * @param code A packed code
+	 * @return The rank of the code
+	 */
+	public int rank(int code) {
+		int colors = spec.getColors();
+		int rank = 0;
+		for (int i = pegs - 1; i >= 0; i--) {
+			rank = rank * colors + colorAt(code, i);
+		}
+		return rank;
+	}
+
+	/**
+	 * Get the packed code with the given rank.
+	 *
+	 * @param rank The rank of a code
+	 * @return The packed code
+	 */
+	public int unrank(int rank) {
+		int colors = spec.getColors();
+		int code = 0;
+		for (int i = 0; i < pegs; i++) {
+			code |= (rank % colors) << (i * PEG_BITS);
+			rank /= colors;
+		}
+		return code;
+	}
+
+	/**
+	 * Lists every code the spec allows, packed.
+	 *
+	 * Codes come in rank order, treating peg 0 as the
+	 * lowest digit of a base getColors() number. Codes
+	 * that repeat a color are left out when the spec
+	 * doesn't allow duplicates.
+	 *
+	 * @return The packed codes
+	 * @throws IllegalStateException When there are too many codes for an array
+	 */
+	public int[] allCodes() {
+		long count = spec.codeCount();
+		if (count > Integer.MAX_VALUE - 8) {
+			throw new IllegalStateException(spec + " has too many codes to list: " + count);
+		}
+		int colors = spec.getColors();
+		int[] codes = new int[(int) count];
+		int[] digits = new int[pegs];
+		int n = 0;
+		while (true) {
+			int code = 0;
+			int used = 0;
+			boolean repeats = false;
+			for (int i = 0; i < pegs; i++) {
+				code |= digits[i] << (i * PEG_BITS);
+				repeats |= (used & (1 << digits[i])) != 0;
+				used |= 1 << digits[i];
+			}
+			if (spec.allowsDuplicates() || !repeats) {
+				codes[n++] = code;
+			}
+			// counts up in base colors, peg 0 first
+			int i = 0;
+			while (i < pegs && ++digits[i] == colors) {
+				digits[i++] = 0;
+			}
+			if (i == pegs) {
+				return codes;
+			}
+		}
+	}
+
+	/**
+	 * Scores a packed guess against a packed secret in one pass.
+	 *
+	 * Pegs that match exactly are counted right away. Every
+	 * other peg bumps the count of its color for its side,
+	 * and the per-color counts are kept as 4 bit fields of a
+	 * long (one field per color) instead of in an array, so
+	 * nothing is allocated. The right color wrong place count
+	 * is then the sum over colors of the smaller of the two
+	 * counts.
+	 *
+	 * @param secret The packed secret code
+	 * @param guess The packed guess
+	 * @return The packed feedback
+	 */
+	public int score(int secret, int guess) {
+		int black = 0;
+		long secretCounts = 0;
+		long guessCounts = 0;
+		for (int i = 0; i < pegs; i++) {
+			int shift = i * PEG_BITS;
+			int s = (secret >>> shift) & PEG_MASK;
+			int g = (guess >>> shift) & PEG_MASK;
+			if (s == g) {
+				black++;
+			} else {
+				secretCounts += 1L << (s * PEG_BITS);
+				guessCounts += 1L << (g * PEG_BITS);
+			}
+		}
+		int white = 0;
+		while (secretCounts != 0 && guessCounts != 0) {
+			white += Math.min((int) secretCounts & PEG_MASK, (int) guessCounts & PEG_MASK);
+			secretCounts >>>= PEG_BITS;
+			guessCounts >>>= PEG_BITS;
+		}
+		return feedback(black, white);
+	}
+
+	/**
+	 * Scores one guess against many codes.
+	 *
+	 * The guess's colors and their counts are worked out
+	 * once for the whole batch. For each code, the number
+	 * of right color right place pegs is the number of
+	 * nibbles where the code and the guess agree, found by
+	 * XORing them and counting zero nibbles. The number of
+	 * pegs of a guess color in the code is found the same
+	 * way against that color repeated in every nibble, so
+	 * only the guess's distinct colors are looked at.
+	 *
+	 * @param guess The packed guess
+	 * @param codes The packed codes to score it against (as secrets)
+	 * @param count How many codes, from the start of the array, to score
+	 * @param results Where to put the packed feedback for each code
+	 */
+	public void scoreAll(int guess, int[] codes, int count, int[] results) {
+		int[] colorRuns = new int[pegs];
+		int[] colorCounts = new int[pegs];
+		int distinct = guessColors(guess, colorRuns, colorCounts);
+		for (int i = 0; i < count; i++) {
+			results[i] = scoreAgainst(codes[i], guess, colorRuns, colorCounts, distinct);
+		}
+	}
+
+	/**
+	 * Counts how many codes give each feedback for a guess.
+	 *
+	 * @param guess The packed guess
+	 * @param codes The packed codes to score it against (as secrets)
+	 * @param count How many codes, from the start of the array, to score
+	 * @param counts The count for each packed feedback, added to (not cleared)
+	 * @return The largest count after adding
+	 */
+	public int countPartitions(int guess, int[] codes, int count, int[] counts) {
+		int[] colorRuns = new int[pegs];
+		int[] colorCounts = new int[pegs];
+		int distinct = guessColors(guess, colorRuns, colorCounts);
+		int largest = 0;
+		for (int i = 0; i < count; i++) {
+			largest = Math.max(largest, ++counts[scoreAgainst(codes[i], guess, colorRuns, colorCounts, distinct)]);
+		}
+		return largest;
+	}
+
+	/**
+	 * Keeps only the codes that give the feedback for a guess.
+	 *
+	 * The kept codes are moved to the front of the array,
+	 * in their original order.
+	 *
+	 * @param guess The packed guess
+	 * @param feedback The packed feedback to keep
+	 * @param codes The packed codes to filter (as secrets)
+	 * @param count How many codes, from the start of the array, to filter
+	 * @return How many codes were kept
+	 */
+	public int filter(int guess, int feedback, int[] codes, int count) {
+		int[] colorRuns = new int[pegs];
+		int[] colorCounts = new int[pegs];
+		int distinct = guessColors(guess, colorRuns, colorCounts);
+		int kept = 0;
+		for (int i = 0; i < count; i++) {
+			int code = codes[i];
+			if (scoreAgainst(code, guess, colorRuns, colorCounts, distinct) == feedback) {
+				codes[kept++] = code;
+			}
+		}
+		return kept;
+	}
+
+	/**
+	 * Finds the distinct colors of a guess.
+	 *
+	 * @param guess The packed guess
+	 * @param colorRuns Filled with each distinct color repeated in every peg's nibble
+	 * @param colorCounts Filled with how often each distinct color appears in the guess
+	 * @return How many distinct colors the guess has
+	 */
+	private int guessColors(int guess, int[] colorRuns, int[] colorCounts) {
+		int distinct = 0;
+		for (int i = 0; i < pegs; i++) {
+			int run = colorAt(guess, i) * lowMask;
+			int c = 0;
+			while (c < distinct && colorRuns[c] != run) {
+				c++;
+			}
+			if (c == distinct) {
+				colorRuns[distinct++] = run;
+			}
+			colorCounts[c]++;
+		}
+		return distinct;
+	}
+
+	/**
+	 * Scores a guess against one code with the
+	 * guess's colors already worked out.
+	 */
+	private int scoreAgainst(int code, int guess, int[] colorRuns, int[] colorCounts, int distinct) {
+		int black = pegs - Integer.bitCount(nonZeroNibbles(code ^ guess));
+		int common = 0;
+		for (int c = 0; c < distinct; c++) {
+			int matches = pegs - Integer.bitCount(nonZeroNibbles(code ^ colorRuns[c]));
+			common += Math.min(matches, colorCounts[c]);
+		}
+		return feedback(black, common - black);
+	}
+
+	/**
+	 * Marks the pegs of x that aren't zero, with a 1 in
+	 * the lowest bit of each such peg's nibble.
+	 */
+	private int nonZeroNibbles(int x) {
+		return (x | x >>> 1 | x >>> 2 | x >>> 3) & lowMask;
+	}
+
+	@Override
+	public int score(CharSequence secret, CharSequence guess) {
+		return score(encode(secret), encode(guess));
+	}
+}
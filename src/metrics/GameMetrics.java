@@ -0,0 +1,291 @@
+package metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file keeps the numbers for every game
+ * in the process: guesses scored, guesses turned away,
+ * wins, losses, how many guesses each win took and how long
+ * scoring takes. The controllers and models record into the
+ * one instance from get(), on whatever thread they run on,
+ * so every count is a LongAdder and recording never takes a
+ * lock. Timing every scoring call would cost more than the
+ * scoring, so only 1 in getLatencySampleRate() calls is
+ * timed. The numbers are shown over JMX once register() is
+ * called, and wins, losses and turned away guesses are also
+ * Java Flight Recorder events (see JfrEvent) when the JVM
+ * has a flight recorder.
+ *
+ */
+public final class GameMetrics implements GameMetricsMBean {
+	/** The name the metrics are registered under over JMX. */
+	public static final String OBJECT_NAME = "mastermind:type=GameMetrics";
+	/** The most guesses counted on their own in getGuessesToWin. */
+	public static final int MAX_GUESSES = 64;
+	/** How often scoring calls are timed to begin with. */
+	public static final int DEFAULT_SAMPLE_RATE = 16;
+
+	private static final GameMetrics INSTANCE = new GameMetrics();
+
+	private final LongAdder guessesScored = new LongAdder();
+	private final LongAdder invalidColors = new LongAdder();
+	private final LongAdder invalidLengths = new LongAdder();
+	private final LongAdder wins = new LongAdder();
+	private final LongAdder losses = new LongAdder();
+	private final LongAdder[] guessesToWin = new LongAdder[MAX_GUESSES + 1];
+	private final LatencyHistogram scoreLatency = new LatencyHistogram();
+	private volatile int sampleRate = DEFAULT_SAMPLE_RATE;
+	private boolean registered;
+
+	private GameMetrics() {
+		for (int i = 0; i < guessesToWin.length; i++) {
+			guessesToWin[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Get the metrics for the process.
+	 *
+	 * @return The one GameMetrics
+	 */
+	public static GameMetrics get() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Shows the metrics over JMX on the platform MBeanServer.
+	 * Calling it again does nothing.
+	 *
+	 * @throws IllegalStateException When the MBeanServer turns the metrics away
+	 */
+	public static synchronized void register() {
+		if (INSTANCE.registered) {
+			return;
+		}
+		// defining the events loads the flight recorder, which is better done at startup than on the first game
+		JfrEvents.load();
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+		} catch (InstanceAlreadyExistsException e) {
+			// someone else registered it under our name
+		} catch (JMException e) {
+			throw new IllegalStateException("could not register " + OBJECT_NAME, e);
+		}
+		INSTANCE.registered = true;
+	}
+
+	/**
+	 * Decides whether to time the scoring call about to start.
+	 *
+	 * @return Whether to time it
+	 */
+	public boolean sampleLatency() {
+		int rate = sampleRate;
+		return rate == 1 || (rate > 1 && ThreadLocalRandom.current().nextInt(rate) == 0);
+	}
+
+	/**
+	 * Records a guess scored.
+	 *
+	 * @param nanos How long scoring took, or -1 when it wasn't timed
+	 */
+	public void guessScored(long nanos) {
+		guessesScored.increment();
+		if (nanos >= 0) {
+			scoreLatency.record(nanos);
+		}
+	}
+
+	/**
+	 * Records a guess turned away for a bad color.
+	 */
+	public void invalidColor() {
+		invalidColors.increment();
+		rejected("color");
+	}
+
+	/**
+	 * Records a guess turned away for a bad length.
+	 */
+	public void invalidLength() {
+		invalidLengths.increment();
+		rejected("length");
+	}
+
+	/**
+	 * Records a game won.
+	 *
+	 * @param guesses How many guesses it took
+	 */
+	public void gameWon(int guesses) {
+		wins.increment();
+		guessesToWin[Math.max(0, Math.min(guesses, MAX_GUESSES))].increment();
+		ended(guesses, true);
+	}
+
+	/**
+	 * Records a game lost.
+	 *
+	 * @param guesses How many guesses were played
+	 */
+	public void gameLost(int guesses) {
+		losses.increment();
+		ended(guesses, false);
+	}
+
+	private void rejected(String reason) {
+		JfrEvent event = JfrEvents.GUESS_REJECTED;
+		if (event != null && event.isEnabled()) {
+			event.commit(reason);
+		}
+	}
+
+	private void ended(int guesses, boolean won) {
+		JfrEvent event = JfrEvents.GAME_ENDED;
+		if (event != null && event.isEnabled()) {
+			event.commit(guesses, won);
+		}
+	}
+
+	@Override
+	public long getGuessesScored() {
+		return guessesScored.sum();
+	}
+
+	@Override
+	public long getInvalidColors() {
+		return invalidColors.sum();
+	}
+
+	@Override
+	public long getInvalidLengths() {
+		return invalidLengths.sum();
+	}
+
+	@Override
+	public long getWins() {
+		return wins.sum();
+	}
+
+	@Override
+	public long getLosses() {
+		return losses.sum();
+	}
+
+	@Override
+	public long[] getGuessesToWin() {
+		long[] counts = new long[guessesToWin.length];
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = guessesToWin[i].sum();
+		}
+		return counts;
+	}
+
+	@Override
+	public double getMeanGuessesToWin() {
+		long[] counts = getGuessesToWin();
+		long games = 0;
+		long guesses = 0;
+		for (int i = 0; i < counts.length; i++) {
+			games += counts[i];
+			guesses += i * counts[i];
+		}
+		return games == 0 ? 0 : (double) guesses / games;
+	}
+
+	@Override
+	public long getScoreLatencyCount() {
+		return scoreLatency.getCount();
+	}
+
+	@Override
+	public double getScoreLatencyMeanNanos() {
+		return scoreLatency.getMean();
+	}
+
+	@Override
+	public long getScoreLatencyP50Nanos() {
+		return scoreLatency.getPercentile(50);
+	}
+
+	@Override
+	public long getScoreLatencyP99Nanos() {
+		return scoreLatency.getPercentile(99);
+	}
+
+	@Override
+	public long getScoreLatencyP999Nanos() {
+		return scoreLatency.getPercentile(99.9);
+	}
+
+	@Override
+	public long getScoreLatencyMaxNanos() {
+		return scoreLatency.getMax();
+	}
+
+	@Override
+	public int getLatencySampleRate() {
+		return sampleRate;
+	}
+
+	@Override
+	public void setLatencySampleRate(int rate) {
+		if (rate < 0) {
+			throw new IllegalArgumentException("the sample rate can't be negative: " + rate);
+		}
+		sampleRate = rate;
+	}
+
+	@Override
+	public void reset() {
+		guessesScored.reset();
+		invalidColors.reset();
+		invalidLengths.reset();
+		wins.reset();
+		losses.reset();
+		for (LongAdder count : guessesToWin) {
+			count.reset();
+		}
+		scoreLatency.reset();
+	}
+
+	/**
+	 * This inner class holds the event types, so they are
+	 * only defined when first used or when registered.
+	 */
+	private static final class JfrEvents {
+		static final JfrEvent GAME_ENDED = JfrEvent.define("mastermind.GameEnded", "Game Ended",
+				new String[] { "guesses", "won" }, new Class<?>[] { int.class, boolean.class });
+		static final JfrEvent GUESS_REJECTED = JfrEvent.define("mastermind.GuessRejected", "Guess Rejected",
+				new String[] { "reason" }, new Class<?>[] { String.class });
+
+		static void load() {
+			// loading the class defines the events
+		}
+	}
+
+	/**
+	 * Get the metrics as a few lines of text.
+	 *
+	 * @return The summary
+	 */
+	@Override
+	public String toString() {
+		return String.format("guesses scored: %d (invalid colors %d, invalid lengths %d)%n"
+				+ "games: %d won (mean %.2f guesses), %d lost%n"
+				+ "scoring: %d timed, mean %.0f ns, p50 %d ns, p99 %d ns, p99.9 %d ns, max %d ns",
+				getGuessesScored(), getInvalidColors(), getInvalidLengths(),
+				getWins(), getMeanGuessesToWin(), getLosses(),
+				getScoreLatencyCount(), getScoreLatencyMeanNanos(), getScoreLatencyP50Nanos(),
+				getScoreLatencyP99Nanos(), getScoreLatencyP999Nanos(), getScoreLatencyMaxNanos());
+	}
+}
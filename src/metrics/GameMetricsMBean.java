@@ -0,0 +1,123 @@
+package metrics;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file is what GameMetrics shows over
+ * JMX, under the name mastermind:type=GameMetrics. It is
+ * read by tools such as jconsole or VisualVM.
+ *
+ */
+public interface GameMetricsMBean {
+
+	/**
+	 * Get how many guesses the controllers have scored.
+	 *
+	 * @return The number of guesses
+	 */
+	long getGuessesScored();
+
+	/**
+	 * Get how many guesses were turned away for a bad color.
+	 *
+	 * @return The number of guesses
+	 */
+	long getInvalidColors();
+
+	/**
+	 * Get how many guesses were turned away for a bad length.
+	 *
+	 * @return The number of guesses
+	 */
+	long getInvalidLengths();
+
+	/**
+	 * Get how many games were won.
+	 *
+	 * @return The number of games
+	 */
+	long getWins();
+
+	/**
+	 * Get how many games were lost.
+	 *
+	 * @return The number of games
+	 */
+	long getLosses();
+
+	/**
+	 * Get how many games were won on each guess.
+	 *
+	 * @return The number of games won on guess i at index i, with the last index also counting every later guess
+	 */
+	long[] getGuessesToWin();
+
+	/**
+	 * Get the mean number of guesses of the games won.
+	 *
+	 * @return The mean guesses
+	 */
+	double getMeanGuessesToWin();
+
+	/**
+	 * Get how many scoring calls were timed.
+	 *
+	 * @return The number of calls
+	 */
+	long getScoreLatencyCount();
+
+	/**
+	 * Get the mean time of the scoring calls timed.
+	 *
+	 * @return The mean, in nanoseconds
+	 */
+	double getScoreLatencyMeanNanos();
+
+	/**
+	 * Get the median time of the scoring calls timed.
+	 *
+	 * @return The median, in nanoseconds
+	 */
+	long getScoreLatencyP50Nanos();
+
+	/**
+	 * Get the 99th percentile time of the scoring calls timed.
+	 *
+	 * @return The 99th percentile, in nanoseconds
+	 */
+	long getScoreLatencyP99Nanos();
+
+	/**
+	 * Get the 99.9th percentile time of the scoring calls timed.
+	 *
+	 * @return The 99.9th percentile, in nanoseconds
+	 */
+	long getScoreLatencyP999Nanos();
+
+	/**
+	 * Get the longest scoring call timed.
+	 *
+	 * @return The longest time, in nanoseconds
+	 */
+	long getScoreLatencyMaxNanos();
+
+	/**
+	 * Get how often scoring calls are timed.
+	 *
+	 * @return 1 in how many calls is timed, or 0 for none
+	 */
+	int getLatencySampleRate();
+
+	/**
+	 * Set how often scoring calls are timed.
+	 *
+	 * @param rate 1 in how many calls to time (1 times every call), or 0 for none
+	 */
+	void setLatencySampleRate(int rate);
+
+	/**
+	 * Sets every count back to 0.
+	 */
+	void reset();
+}
@@ -0,0 +1,115 @@
+package metrics;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file is a custom Java Flight Recorder
+ * event type. The code is built for Java 8, which has no
+ * jdk.jfr to compile against, so the type is made at run
+ * time with jdk.jfr.EventFactory, found by reflection.
+ * When the JVM has no flight recorder, define gives null
+ * and callers skip the event. Committing an event only
+ * costs a check of whether the type is being recorded,
+ * until a recording turns it on.
+ *
+ */
+final class JfrEvent {
+	private final MethodHandle isEnabled;
+	private final MethodHandle newEvent;
+	private final MethodHandle set;
+	private final MethodHandle commit;
+
+	private JfrEvent(MethodHandle isEnabled, MethodHandle newEvent, MethodHandle set, MethodHandle commit) {
+		this.isEnabled = isEnabled;
+		this.newEvent = newEvent;
+		this.set = set;
+		this.commit = commit;
+	}
+
+	/**
+	 * Makes and registers an event type, in the Mastermind category.
+	 *
+	 * @param name The event's name, such as mastermind.GameEnded
+	 * @param label The event's label, as recording tools show it
+	 * @param fields The names of the event's fields
+	 * @param types The types of the event's fields, in the same order
+	 * @return The event type, or null when the JVM has no flight recorder
+	 */
+	static JfrEvent define(String name, String label, String[] fields, Class<?>[] types) {
+		try {
+			Class<?> annotationElement = Class.forName("jdk.jfr.AnnotationElement");
+			Class<?> valueDescriptor = Class.forName("jdk.jfr.ValueDescriptor");
+			Class<?> eventFactory = Class.forName("jdk.jfr.EventFactory");
+			Class<?> eventType = Class.forName("jdk.jfr.EventType");
+			Class<?> event = Class.forName("jdk.jfr.Event");
+
+			List<Object> annotations = new ArrayList<>();
+			annotations.add(annotation(annotationElement, "jdk.jfr.Name", name));
+			annotations.add(annotation(annotationElement, "jdk.jfr.Label", label));
+			String[] category = { "Mastermind" };
+			annotations.add(annotation(annotationElement, "jdk.jfr.Category", category));
+			List<Object> values = new ArrayList<>();
+			for (int i = 0; i < fields.length; i++) {
+				values.add(valueDescriptor.getConstructor(Class.class, String.class).newInstance(types[i], fields[i]));
+			}
+			Object factory = eventFactory.getMethod("create", List.class, List.class).invoke(null, annotations, values);
+
+			MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+			Object type = eventFactory.getMethod("getEventType").invoke(factory);
+			MethodHandle isEnabled = lookup.findVirtual(eventType, "isEnabled", MethodType.methodType(boolean.class))
+					.bindTo(type);
+			MethodHandle newEvent = lookup.findVirtual(eventFactory, "newEvent", MethodType.methodType(event))
+					.bindTo(factory).asType(MethodType.methodType(Object.class));
+			MethodHandle set = lookup.findVirtual(event, "set", MethodType.methodType(void.class, int.class, Object.class))
+					.asType(MethodType.methodType(void.class, Object.class, int.class, Object.class));
+			MethodHandle commit = lookup.findVirtual(event, "commit", MethodType.methodType(void.class))
+					.asType(MethodType.methodType(void.class, Object.class));
+			return new JfrEvent(isEnabled, newEvent, set, commit);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	private static Object annotation(Class<?> annotationElement, String type, Object value)
+			throws ReflectiveOperationException {
+		return annotationElement.getConstructor(Class.class, Object.class).newInstance(Class.forName(type), value);
+	}
+
+	/**
+	 * Checks if a recording wants this event, so the
+	 * caller can skip boxing the values when it doesn't.
+	 *
+	 * @return Whether the event is being recorded
+	 */
+	boolean isEnabled() {
+		try {
+			return (boolean) isEnabled.invokeExact();
+		} catch (Throwable e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Commits one event.
+	 *
+	 * @param values The event's fields, in the order they were defined
+	 */
+	void commit(Object... values) {
+		try {
+			Object event = (Object) newEvent.invokeExact();
+			for (int i = 0; i < values.length; i++) {
+				set.invokeExact(event, i, values[i]);
+			}
+			commit.invokeExact(event);
+		} catch (Throwable e) {
+			// a lost event is not worth failing the game over
+		}
+	}
+}
@@ -0,0 +1,154 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file counts how long something took,
+ * in nanoseconds, the way an HDR histogram does: values
+ * below 32 get a bucket each, and every power of two above
+ * that is split into 32 buckets, so any value is known to
+ * within about 3% with a fixed 1152 buckets (up to about
+ * 18 minutes). Each bucket is a LongAdder, which stripes
+ * its count across threads that record at the same time,
+ * so recording is an increment with no lock and no shared
+ * cache line to fight over.
+ *
+ */
+public final class LatencyHistogram {
+	// each power of two is split into 2^SUB_BITS buckets
+	private static final int SUB_BITS = 5;
+	private static final int SUB_COUNT = 1 << SUB_BITS;
+	// values from 2^MAX_BITS up go in the last bucket
+	private static final int MAX_BITS = 40;
+	private static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+
+	private final LongAdder[] counts = new LongAdder[index(MAX_VALUE) + 1];
+	private final LongAdder total = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * This is the constructor for an empty histogram.
+	 */
+	public LatencyHistogram() {
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Records one value.
+	 *
+	 * @param nanos How long it took, negative values count as 0
+	 */
+	public void record(long nanos) {
+		long value = Math.max(0, Math.min(nanos, MAX_VALUE));
+		counts[index(value)].increment();
+		total.add(value);
+		max.accumulate(value);
+	}
+
+	/**
+	 * Get how many values were recorded.
+	 *
+	 * @return The count
+	 */
+	public long getCount() {
+		long count = 0;
+		for (LongAdder bucket : counts) {
+			count += bucket.sum();
+		}
+		return count;
+	}
+
+	/**
+	 * Get the mean of the values recorded.
+	 *
+	 * @return The mean, or 0 with no values
+	 */
+	public double getMean() {
+		long count = getCount();
+		return count == 0 ? 0 : (double) total.sum() / count;
+	}
+
+	/**
+	 * Get the largest value recorded.
+	 *
+	 * @return The largest value, exactly
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Get the value that a share of the values are at or below.
+	 *
+	 * @param percentile From 0 to 100
+	 * @return The top of the bucket the percentile falls in (never above the max), or 0 with no values
+	 */
+	public long getPercentile(double percentile) {
+		long[] snapshot = new long[counts.length];
+		long count = 0;
+		for (int i = 0; i < counts.length; i++) {
+			snapshot[i] = counts[i].sum();
+			count += snapshot[i];
+		}
+		if (count == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = 0;
+		for (int i = 0; i < snapshot.length; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				return Math.min(lowest(i + 1) - 1, getMax());
+			}
+		}
+		return getMax();
+	}
+
+	/**
+	 * Forgets every value recorded.
+	 */
+	public void reset() {
+		for (LongAdder bucket : counts) {
+			bucket.reset();
+		}
+		total.reset();
+		max.reset();
+	}
+
+	/**
+	 * Finds a value's bucket.
+	 *
+	 * @param value From 0 to MAX_VALUE
+	 * @return The bucket index
+	 */
+	static int index(long value) {
+		if (value < SUB_COUNT) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		// the SUB_BITS bits after the leading one pick the bucket within the power of two
+		int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+		return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+	}
+
+	/**
+	 * Finds the lowest value in a bucket.
+	 *
+	 * @param index The bucket index
+	 * @return The lowest value that goes in the bucket
+	 */
+	static long lowest(int index) {
+		if (index < SUB_COUNT) {
+			return index;
+		}
+		int power = index / SUB_COUNT;
+		int sub = index % SUB_COUNT;
+		return (long) (SUB_COUNT + sub) << (power - 1);
+	}
+}
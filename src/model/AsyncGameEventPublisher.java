@@ -0,0 +1,157 @@
+package model;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file hands game events to slow
+ * consumers (metrics, persistence, spectators) without
+ * making the game wait for them. Register it on a
+ * GameEventBus like any other listener. Every subscriber
+ * gets its own bounded buffer, and an executor delivers
+ * the buffered events to it in order, one batch at a
+ * time. When a subscriber falls so far behind that its
+ * buffer is full, new events for it are dropped (and
+ * counted) instead of blocking the guess that fired them.
+ *
+ */
+public class AsyncGameEventPublisher implements GameListener {
+	private final Executor executor;
+	private final int bufferSize;
+	private final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+	/**
+	 * This is the constructor for the publisher.
+	 *
+	 * @param executor The Executor that delivers events to subscribers
+	 * @param bufferSize How many undelivered events each subscriber may have
+	 */
+	public AsyncGameEventPublisher(Executor executor, int bufferSize) {
+		if (bufferSize < 1) {
+			throw new IllegalArgumentException("bufferSize must be positive: " + bufferSize);
+		}
+		this.executor = executor;
+		this.bufferSize = bufferSize;
+	}
+
+	/**
+	 * Adds a subscriber.
+	 *
+	 * @param consumer What to call with each event, on the executor
+	 * @return The Subscription, for cancelling and checking drops
+	 */
+	public Subscription subscribe(Consumer<GameEvent> consumer) {
+		Subscription subscription = new Subscription(consumer);
+		subscriptions.add(subscription);
+		return subscription;
+	}
+
+	@Override
+	public void gameStarted(MastermindModel model) {
+		publish(GameEvent.Type.GAME_STARTED, model, null, 0, 0, 0);
+	}
+
+	@Override
+	public void guessScored(MastermindModel model, String guess, int rightPlace, int wrongPlace, int guessCount) {
+		publish(GameEvent.Type.GUESS_SCORED, model, guess, rightPlace, wrongPlace, guessCount);
+	}
+
+	@Override
+	public void gameWon(MastermindModel model, int guessCount) {
+		publish(GameEvent.Type.GAME_WON, model, null, 0, 0, guessCount);
+	}
+
+	@Override
+	public void gameLost(MastermindModel model, int guessCount) {
+		publish(GameEvent.Type.GAME_LOST, model, null, 0, 0, guessCount);
+	}
+
+	/**
+	 * Buffers an event for every subscriber, only
+	 * making the event if someone is subscribed.
+	 */
+	private void publish(GameEvent.Type type, MastermindModel model, String guess,
+			int rightPlace, int wrongPlace, int guessCount) {
+		if (subscriptions.isEmpty()) {
+			return;
+		}
+		GameEvent event = new GameEvent(type, model, guess, rightPlace, wrongPlace, guessCount);
+		for (Subscription subscription : subscriptions) {
+			subscription.offer(event);
+		}
+	}
+
+	/**
+	 * This inner class is one subscriber's buffer.
+	 * At most one delivery task runs for it at a
+	 * time, which keeps its events in order.
+	 */
+	public class Subscription {
+		private final Consumer<GameEvent> consumer;
+		private final ArrayBlockingQueue<GameEvent> buffer = new ArrayBlockingQueue<>(bufferSize);
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+		private final AtomicLong dropped = new AtomicLong();
+
+		private Subscription(Consumer<GameEvent> consumer) {
+			this.consumer = consumer;
+		}
+
+		/**
+		 * Buffers an event, or drops it if the buffer is full.
+		 */
+		private void offer(GameEvent event) {
+			if (!buffer.offer(event)) {
+				dropped.incrementAndGet();
+				return;
+			}
+			if (scheduled.compareAndSet(false, true)) {
+				executor.execute(this::deliver);
+			}
+		}
+
+		/**
+		 * Delivers buffered events until the buffer is empty.
+		 */
+		private void deliver() {
+			while (true) {
+				GameEvent event;
+				while ((event = buffer.poll()) != null) {
+					try {
+						consumer.accept(event);
+					} catch (RuntimeException e) {
+						e.printStackTrace();
+					}
+				}
+				scheduled.set(false);
+				// an event may have come in after the last poll but before the flag was cleared
+				if (buffer.isEmpty() || !scheduled.compareAndSet(false, true)) {
+					return;
+				}
+			}
+		}
+
+		/**
+		 * Stops delivering events to this subscriber.
+		 * Events already buffered may still be delivered.
+		 */
+		public void cancel() {
+			subscriptions.remove(this);
+		}
+
+		/**
+		 * Get how many events were dropped because the buffer was full.
+		 *
+		 * @return The number of dropped events
+		 */
+		public long getDropped() {
+			return dropped.get();
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package model;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file is one game event as a value,
+ * for consumers that receive events later or on another
+ * thread (see AsyncGameEventPublisher). Fields that
+ * don't apply to the event's type are null or 0.
+ *
+ */
+public final class GameEvent {
+
+	/**
+	 * The kinds of game events, matching the GameListener methods.
+	 */
+	public enum Type {
+		GAME_STARTED, GUESS_SCORED, GAME_WON, GAME_LOST
+	}
+
+	private final Type type;
+	private final MastermindModel model;
+	private final String guess;
+	private final int rightPlace;
+	private final int wrongPlace;
+	private final int guessCount;
+	private final long nanoTime;
+
+	/**
+	 * This is the constructor for an event.
+	 *
+	 * @param type The kind of event
+	 * @param model The model of the game
+	 * @param guess The guess, for GUESS_SCORED
+	 * @param rightPlace The right color right place count, for GUESS_SCORED
+	 * @param wrongPlace The right color wrong place count, for GUESS_SCORED
+	 * @param guessCount The number of the guess, 0 for GAME_STARTED
+	 */
+	public GameEvent(Type type, MastermindModel model, String guess, int rightPlace, int wrongPlace, int guessCount) {
+		this.type = type;
+		this.model = model;
+		this.guess = guess;
+		this.rightPlace = rightPlace;
+		this.wrongPlace = wrongPlace;
+		this.guessCount = guessCount;
+		this.nanoTime = System.nanoTime();
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public MastermindModel getModel() {
+		return model;
+	}
+
+	public String getGuess() {
+		return guess;
+	}
+
+	public int getRightPlace() {
+		return rightPlace;
+	}
+
+	public int getWrongPlace() {
+		return wrongPlace;
+	}
+
+	public int getGuessCount() {
+		return guessCount;
+	}
+
+	/**
+	 * Get when the event happened, from System.nanoTime.
+	 *
+	 * @return The time of the event in nanoseconds
+	 */
+	public long getNanoTime() {
+		return nanoTime;
+	}
+
+	@Override
+	public String toString() {
+		switch (type) {
+		case GUESS_SCORED:
+			return type + " #" + guessCount + " " + guess + " " + rightPlace + "/" + wrongPlace;
+		case GAME_STARTED:
+			return type.toString();
+		default:
+			return type + " after " + guessCount;
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package model;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file passes game events on to every
+ * registered GameListener, in the order they were added,
+ * on the calling thread. The listeners are kept in an
+ * array that is replaced (never changed) when someone
+ * registers or leaves, with a compare-and-set, so firing
+ * an event takes no lock and allocates nothing. One bus
+ * can be shared by many models, for example to watch
+ * every game on a server.
+ *
+ */
+public class GameEventBus implements GameListener {
+	private static final GameListener[] NONE = new GameListener[0];
+
+	private final AtomicReference<GameListener[]> listeners = new AtomicReference<>(NONE);
+
+	/**
+	 * Registers a listener.
+	 *
+	 * @param listener The GameListener to add
+	 */
+	public void add(GameListener listener) {
+		while (true) {
+			GameListener[] current = listeners.get();
+			GameListener[] next = Arrays.copyOf(current, current.length + 1);
+			next[current.length] = listener;
+			if (listeners.compareAndSet(current, next)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Unregisters a listener.
+	 *
+	 * @param listener The GameListener to remove
+	 * @return Whether the listener was registered
+	 */
+	public boolean remove(GameListener listener) {
+		while (true) {
+			GameListener[] current = listeners.get();
+			int index = Arrays.asList(current).indexOf(listener);
+			if (index < 0) {
+				return false;
+			}
+			GameListener[] next = new GameListener[current.length - 1];
+			System.arraycopy(current, 0, next, 0, index);
+			System.arraycopy(current, index + 1, next, index, next.length - index);
+			if (listeners.compareAndSet(current, next)) {
+				return true;
+			}
+		}
+	}
+
+	@Override
+	public void gameStarted(MastermindModel model) {
+		for (GameListener listener : listeners.get()) {
+			listener.gameStarted(model);
+		}
+	}
+
+	@Override
+	public void guessScored(MastermindModel model, String guess, int rightPlace, int wrongPlace, int guessCount) {
+		for (GameListener listener : listeners.get()) {
+			listener.guessScored(model, guess, rightPlace, wrongPlace, guessCount);
+		}
+	}
+
+	@Override
+	public void gameWon(MastermindModel model, int guessCount) {
+		for (GameListener listener : listeners.get()) {
+			listener.gameWon(model, guessCount);
+		}
+	}
+
+	@Override
+	public void gameLost(MastermindModel model, int guessCount) {
+		for (GameListener listener : listeners.get()) {
+			listener.gameLost(model, guessCount);
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package model;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file is the listener for game
+ * events. Each kind of event has its own method, so
+ * listeners only override the ones they care about
+ * and get typed arguments (no casting, no boxing).
+ * Listeners are called on the thread that plays the
+ * guess, so they should return quickly; slow consumers
+ * belong behind an AsyncGameEventPublisher.
+ *
+ */
+public interface GameListener {
+
+	/**
+	 * Called when a new game has been set up.
+	 *
+	 * @param model The model of the new game
+	 */
+	default void gameStarted(MastermindModel model) {
+	}
+
+	/**
+	 * Called when a guess has been scored.
+	 *
+	 * @param model The model of the game
+	 * @param guess The guess
+	 * @param rightPlace The right color right place count
+	 * @param wrongPlace The right color wrong place count
+	 * @param guessCount The number of the guess, starting from 1
+	 */
+	default void guessScored(MastermindModel model, String guess, int rightPlace, int wrongPlace, int guessCount) {
+	}
+
+	/**
+	 * Called when the game has been won.
+	 *
+	 * @param model The model of the game
+	 * @param guessCount The number of the winning guess
+	 */
+	default void gameWon(MastermindModel model, int guessCount) {
+	}
+
+	/**
+	 * Called when the game has been lost.
+	 *
+	 * @param model The model of the game
+	 * @param guessCount The number of the last guess
+	 */
+	default void gameLost(MastermindModel model, int guessCount) {
+	}
+}
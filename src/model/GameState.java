@@ -0,0 +1,256 @@
+package model;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file is one moment of a game as a
+ * value: the spec, the secret, every guess played with
+ * its feedback, and whether the game is won or lost. It
+ * never changes, so it can be read from any number of
+ * threads without locks or copies. Playing a guess makes
+ * a new GameState that shares the whole history of the old
+ * one and only adds a Turn at its end, so keeping a state
+ * as a snapshot (for spectators, or to save the game) costs
+ * nothing.
+ *
+ */
+public final class GameState {
+	/** The most guesses a game allows before it is lost. */
+	public static final int MAX_GUESSES = 10;
+	/** The status of a game still being played. */
+	public static final int PLAYING = 0;
+	/** The status of a game won. */
+	public static final int WON = 1;
+	/** The status of a game lost. */
+	public static final int LOST = 2;
+
+	private final MastermindSpec spec;
+	private final String secret;
+	private final Turn last;
+	private final int status;
+
+	private GameState(MastermindSpec spec, String secret, Turn last, int status) {
+		this.spec = spec;
+		this.secret = secret;
+		this.last = last;
+		this.status = status;
+	}
+
+	/**
+	 * Makes the state of a new game with a known secret.
+	 *
+	 * @param spec The MastermindSpec of the game
+	 * @param secret The secret's color characters
+	 * @return The state with no guesses played
+	 * @throws IllegalArgumentException When the secret isn't as long as the spec's number of pegs
+	 */
+	public static GameState start(MastermindSpec spec, String secret) {
+		if (secret.length() != spec.getPegs()) {
+			throw new IllegalArgumentException("the secret " + secret + " doesn't have " + spec.getPegs() + " pegs");
+		}
+		return new GameState(spec, secret, null, PLAYING);
+	}
+
+	/**
+	 * Makes the state of a new game with a random secret,
+	 * only repeating colors if the spec allows duplicates.
+	 *
+	 * @param spec The MastermindSpec of the game
+	 * @param random Where the secret comes from
+	 * @return The state with no guesses played
+	 */
+	public static GameState random(MastermindSpec spec, Random random) {
+		String colorChoices = spec.getColorChars();
+		StringBuilder secret = new StringBuilder(spec.getPegs());
+		for (int i = 0; i < spec.getPegs(); i++) {
+			char color = colorChoices.charAt(random.nextInt(colorChoices.length()));
+			if (!spec.allowsDuplicates()) {
+				// removes the used color so it can't come up again
+				colorChoices = colorChoices.replace(String.valueOf(color), "");
+			}
+			secret.append(color);
+		}
+		return new GameState(spec, secret.toString(), null, PLAYING);
+	}
+
+	/**
+	 * Adds a scored guess to the end of the history. The
+	 * game is won when every peg was right, and lost when
+	 * this was the last guess allowed. A game already over
+	 * stays as it was.
+	 *
+	 * @param guess The guess
+	 * @param rightPlace The right color right place count
+	 * @param wrongPlace The right color wrong place count
+	 * @return The new state, sharing this one's history
+	 */
+	public GameState played(String guess, int rightPlace, int wrongPlace) {
+		Turn turn = new Turn(guess, rightPlace, wrongPlace, last);
+		int next = status;
+		if (next == PLAYING && rightPlace == spec.getPegs()) {
+			next = WON;
+		} else if (next == PLAYING && turn.number >= MAX_GUESSES) {
+			next = LOST;
+		}
+		return new GameState(spec, secret, turn, next);
+	}
+
+	/**
+	 * Marks the game as over, for callers that keep count
+	 * of the guesses themselves.
+	 *
+	 * @param won Whether the game was won
+	 * @return The new state, with the same history
+	 */
+	public GameState ended(boolean won) {
+		return new GameState(spec, secret, last, won ? WON : LOST);
+	}
+
+	/**
+	 * Changes the secret, as the codemaker of an adversarial
+	 * game does after each guess.
+	 *
+	 * @param secret The new secret's color characters
+	 * @return The new state, with the same history
+	 */
+	public GameState withSecret(String secret) {
+		return new GameState(spec, secret, last, status);
+	}
+
+	public MastermindSpec getSpec() {
+		return spec;
+	}
+
+	public String getSecret() {
+		return secret;
+	}
+
+	/**
+	 * Get whether the game is still being played, won or lost.
+	 *
+	 * @return PLAYING, WON or LOST
+	 */
+	public int getStatus() {
+		return status;
+	}
+
+	public boolean isWon() {
+		return status == WON;
+	}
+
+	public boolean isLost() {
+		return status == LOST;
+	}
+
+	public boolean isOver() {
+		return status != PLAYING;
+	}
+
+	/**
+	 * Get how many guesses have been played.
+	 *
+	 * @return The number of turns in the history
+	 */
+	public int getGuessCount() {
+		return last == null ? 0 : last.number;
+	}
+
+	/**
+	 * Get the last guess played. Its getPrevious leads
+	 * back through the rest of the history.
+	 *
+	 * @return The last Turn, or null when no guess has been played
+	 */
+	public Turn getLastTurn() {
+		return last;
+	}
+
+	/**
+	 * Get every guess played, oldest first. The list
+	 * can't be changed.
+	 *
+	 * @return The turns
+	 */
+	public List<Turn> getHistory() {
+		Turn[] turns = new Turn[getGuessCount()];
+		for (Turn turn = last; turn != null; turn = turn.previous) {
+			turns[turn.number - 1] = turn;
+		}
+		return new AbstractList<Turn>() {
+			@Override
+			public Turn get(int index) {
+				return turns[index];
+			}
+
+			@Override
+			public int size() {
+				return turns.length;
+			}
+		};
+	}
+
+	@Override
+	public String toString() {
+		return secret;
+	}
+
+	/**
+	 * This inner class is one guess played and its feedback,
+	 * linked to the guess played before it.
+	 */
+	public static final class Turn {
+		private final String guess;
+		private final int rightPlace;
+		private final int wrongPlace;
+		private final int number;
+		private final Turn previous;
+
+		private Turn(String guess, int rightPlace, int wrongPlace, Turn previous) {
+			this.guess = guess;
+			this.rightPlace = rightPlace;
+			this.wrongPlace = wrongPlace;
+			this.number = previous == null ? 1 : previous.number + 1;
+			this.previous = previous;
+		}
+
+		public String getGuess() {
+			return guess;
+		}
+
+		public int getRightPlace() {
+			return rightPlace;
+		}
+
+		public int getWrongPlace() {
+			return wrongPlace;
+		}
+
+		/**
+		 * Get the number of the guess.
+		 *
+		 * @return The number, starting from 1
+		 */
+		public int getNumber() {
+			return number;
+		}
+
+		/**
+		 * Get the guess played before this one.
+		 *
+		 * @return The previous Turn, or null for the first guess
+		 */
+		public Turn getPrevious() {
+			return previous;
+		}
+
+		@Override
+		public String toString() {
+			return "#" + number + " " + guess + " " + rightPlace + "/" + wrongPlace;
+		}
+	}
+}
@@ -1,9 +1,9 @@
 package model;
 
-import java.util.Observable;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
 
-import javafx.scene.control.Button;
+import metrics.GameMetrics;
 
 /**
  * 
@@ -12,40 +12,94 @@ import javafx.scene.control.Button;
  * Description: This file is the model
  * of the MVC setup. This means it deals
  * with the internal data structures
- * for MasterMind.
+ * for MasterMind. It announces what
+ * happens in the game (start, scored
+ * guesses, win, loss) on its GameEventBus.
+ * The game itself is a GameState, which never changes;
+ * each guess swaps in a new one, so getState can be
+ * called from any thread and kept as a snapshot.
  *
  */
-public class MastermindModel extends Observable {
+public class MastermindModel {
 	// Instance fields
-	public char[] solution;
-	private char[] copy;
-	public boolean winState;
-	public boolean loseState;
-	public int gameOverVersion;
+	private final AtomicReference<GameState> state;
+	private final MastermindSpec spec;
+	private final GameEventBus events;
+	private final boolean adversarial;
 	
 	/**
 	 * This is the main constructor for the model.
 	 * 
 	 * It takes in no parameters. It stores a
-	 * solution as a character array of 
+	 * solution as a String of 
 	 * 4 random colors out of 6 available ones 
 	 * (allowing duplicates).
 	 */
     public MastermindModel() { 
-    	solution = new char[4];
-    	
-		String colorChoices = "rgbypo";
-		Random rand1 = new Random();
-		
-		for(int i = 0; i<4; i++) {
-			// selects a random char out of the 6
-			char ansChar = colorChoices.charAt(rand1.nextInt(6));
-			solution[i] = ansChar;
-		}
-    	
-		winState = false;
-		loseState = false;
-		gameOverVersion = 0;
+    	this(MastermindSpec.CLASSIC);
+    }
+    
+    /**
+     * This constructor makes a random solution
+     * for any game spec.
+     * 
+     * It stores a solution as a String of
+     * spec.getPegs() random colors out of the spec's
+     * colors, only repeating colors if the spec
+     * allows duplicates.
+     * 
+     * @param spec The MastermindSpec of the game to play
+     */
+    public MastermindModel(MastermindSpec spec) {
+    	this(spec, new GameEventBus());
+    }
+    
+    /**
+     * This constructor makes a random solution and
+     * announces the new game on a shared event bus.
+     * 
+     * Listeners already on the bus get gameStarted
+     * once the solution is set.
+     * 
+     * @param spec The MastermindSpec of the game to play
+     * @param events The GameEventBus to announce the game's events on
+     */
+    public MastermindModel(MastermindSpec spec, GameEventBus events) {
+    	this(spec, events, false);
+    }
+    
+    /**
+     * This constructor can make the game adversarial,
+     * the hard difficulty level.
+     * 
+     * In an adversarial game the solution is not fixed
+     * up front. The controller picks it again after each
+     * guess (see controller.AdversarialCodemaker), always
+     * out of the codes that fit every feedback given so
+     * far, so it is only settled once the game is over.
+     * 
+     * @param spec The MastermindSpec of the game to play
+     * @param adversarial Whether the codemaker puts off choosing the solution
+     */
+    public MastermindModel(MastermindSpec spec, boolean adversarial) {
+    	this(spec, new GameEventBus(), adversarial);
+    }
+    
+    /**
+     * This constructor makes a random solution, can make
+     * the game adversarial and announces the new game on
+     * a shared event bus.
+     * 
+     * @param spec The MastermindSpec of the game to play
+     * @param events The GameEventBus to announce the game's events on
+     * @param adversarial Whether the codemaker puts off choosing the solution
+     */
+    public MastermindModel(MastermindSpec spec, GameEventBus events, boolean adversarial) {
+    	this.spec = spec;
+    	this.events = events;
+    	this.adversarial = adversarial;
+    	this.state = new AtomicReference<>(GameState.random(spec, new Random()));
+		events.gameStarted(this);
     }
     
     /**
@@ -58,24 +112,54 @@ public class MastermindModel extends Observable {
      * @param answer A string that represents the four color solution
      */
     public MastermindModel(String answer) {
-    	solution = answer.toCharArray();
+    	this(MastermindSpec.CLASSIC, answer);
     }
     
     /**
-     * This constructor is intended for testing a
-     * predefined input. It takes in a MastermindModel
-     * model and creates a deep copy of it to avoid
-     * overwriting it when doing the RCWP function.
+     * This constructor sets the solution of a game
+     * of any spec from a String parameter.
      * 
+     * @param spec The MastermindSpec of the game to play
+     * @param answer A string that represents the solution
+     */
+    public MastermindModel(MastermindSpec spec, String answer) {
+    	this.spec = spec;
+    	this.events = new GameEventBus();
+    	this.adversarial = false;
+    	this.state = new AtomicReference<>(GameState.start(spec, answer));
+    }
+    
+    /**
+     * This constructor sets the solution from a String
+     * parameter, such as when a saved game is carried on,
+     * and announces the game on a shared event bus.
+     * 
+     * @param spec The MastermindSpec of the game to play
+     * @param answer A string that represents the solution
+     * @param events The GameEventBus to announce the game's events on
+     */
+    public MastermindModel(MastermindSpec spec, String answer, GameEventBus events) {
+    	this.spec = spec;
+    	this.events = events;
+    	this.adversarial = false;
+    	this.state = new AtomicReference<>(GameState.start(spec, answer));
+		events.gameStarted(this);
+    }
+    
+    /**
+     * This constructor carries on a game from where
+     * another model's game is now, such as for a
+     * spectator. The GameState is shared, not copied,
+     * and guesses played on either model afterwards
+     * don't show up on the other.
      * 
      * @param model A MastermindModel model with the solution
      */
     public MastermindModel(MastermindModel model) { 
-    	this.setCopy(new char[4]);
-    	
-    	for (int i=0; i<model.solution.length; i++) {
-    		this.getCopy()[i] = model.solution[i];
-    	}
+    	this.spec = model.spec;
+    	this.events = new GameEventBus();
+    	this.adversarial = model.adversarial;
+    	this.state = new AtomicReference<>(model.getState());
     }
 
     /**
@@ -89,47 +173,136 @@ public class MastermindModel extends Observable {
      * @return The character in the model's solution
      */
     public char getColorAt(int index) {	
-    	return solution[index];
+    	return state.get().getSecret().charAt(index);
     }
     
     /**
-     * Get the copy solution.
+     * Get the game as it is now. The GameState never
+     * changes, so it can be kept or handed to another
+     * thread as is.
      * 
-     * @return A copy of the model
+     * @return The current GameState
      */
-	public char[] getCopy() {
-		return copy;
+    public GameState getState() {
+    	return state.get();
+    }
+    
+    /**
+     * Get the solution as a String.
+     * 
+     * @return The solution's color characters
+     */
+    public String getSolution() {
+    	return state.get().getSecret();
+    }
+    
+    /**
+     * Changes the solution. This is for the codemaker
+     * of an adversarial game (see isAdversarial).
+     * 
+     * @param solution The new solution's color characters
+     */
+    public void setSolution(String solution) {
+    	state.updateAndGet(current -> current.withSecret(solution));
+    }
+    
+    /**
+     * Checks if the game has been won.
+     * 
+     * @return Whether the game is won
+     */
+    public boolean isWon() {
+    	return state.get().isWon();
+    }
+    
+    /**
+     * Checks if the game has been lost.
+     * 
+     * @return Whether the game is lost
+     */
+    public boolean isLost() {
+    	return state.get().isLost();
+    }
+    
+    /**
+     * Get whether the game is over and how it ended.
+     * 
+     * @return 0 while playing, 1 when won or 2 when lost (see GameState.getStatus)
+     */
+    public int getGameOverVersion() {
+    	return state.get().getStatus();
+    }
+    
+    /**
+     * Get the spec of the game being played.
+     * 
+     * @return The model's MastermindSpec
+     */
+    public MastermindSpec getSpec() {
+    	return spec;
+    }
+    
+    /**
+     * Checks if the game is adversarial, meaning its
+     * solution changes as guesses are scored.
+     * 
+     * @return Whether the codemaker puts off choosing the solution
+     */
+    public boolean isAdversarial() {
+    	return adversarial;
+    }
+    
+    /**
+     * Get the event bus the game's events are announced on.
+     * Add a GameListener to it to follow the game.
+     * 
+     * @return The model's GameEventBus
+     */
+    public GameEventBus getEvents() {
+    	return events;
+    }
+    
+	public String toString() {
+		return getSolution();
 	}
 	
 	/**
-	 * Set the copy solution.
+	 * Records whether the game is over after a guess.
+	 * 
+	 * If the guess was correct, or it was the 10th wrong
+	 * guess, gameOverVersion becomes 1 (won) or 2 (lost)
+	 * and the listeners get gameWon or gameLost.
+	 * The guess itself is added to the history by
+	 * recordGuess.
 	 * 
-	 * @param copy A char[] solution to set the copy to
+	 * @param correct Whether the guess was correct
+	 * @param guessCount The number of the guess, starting from 1
 	 */
-	public void setCopy(char[] copy) {
-		this.copy = copy;
-	}
-	
-	public String toString() {
-		String ansStr = "";
-		for (int i = 0; i < 4; i++) {
-			ansStr += this.solution[i];
-		}
-		return ansStr;
-	}
-	
-	public void updateGameOver(boolean correct, int guessCount, Button guessButton2) {		
+	public void updateGameOver(boolean correct, int guessCount) {		
 	    if (correct) {
-	    	winState = true;
-	    	gameOverVersion = 1;
-			setChanged();
-			notifyObservers(gameOverVersion); // calls update
+	    	state.updateAndGet(current -> current.ended(true));
+			GameMetrics.get().gameWon(guessCount);
+			events.gameWon(this, guessCount);
     	} else if (!correct && guessCount >= 10) {
-    		gameOverVersion = 2;
-    		setChanged();
-			notifyObservers(gameOverVersion); // calls update
+    		state.updateAndGet(current -> current.ended(false));
+    		GameMetrics.get().gameLost(guessCount);
+    		events.gameLost(this, guessCount);
     	}
 	}
 	
+	/**
+	 * Adds a scored guess to the game's history and
+	 * announces it to the listeners.
+	 * 
+	 * @param guess The guess
+	 * @param rightPlace The right color right place count
+	 * @param wrongPlace The right color wrong place count
+	 * @param guessCount The number of the guess, starting from 1
+	 */
+	public void recordGuess(String guess, int rightPlace, int wrongPlace, int guessCount) {
+		state.updateAndGet(current -> current.played(guess, rightPlace, wrongPlace));
+		events.guessScored(this, guess, rightPlace, wrongPlace, guessCount);
+	}
+	
     
 }
\ No newline at end of file
@@ -0,0 +1,202 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file describes which game of
+ * Mastermind is being played: how many pegs make up
+ * a code, how many colors each peg can take, and
+ * whether the secret may repeat a color. The colors
+ * are the first ones of the PALETTE, so the classic
+ * game (4 pegs out of 6 colors, duplicates allowed)
+ * uses "rgbypo". A spec never changes once it is made.
+ *
+ */
+public final class MastermindSpec {
+	/**
+	 * Every color a spec can use, in order. The first six are
+	 * the classic ones, followed by white, cyan, magenta,
+	 * browN, grAy, Lime, pinK, Teal, naVy and Salmon.
+	 */
+	public static final String PALETTE = "rgbypowcmnalktvs";
+	/** The most pegs a code can have (feedback keeps each count in 5 bits). */
+	public static final int MAX_PEGS = 31;
+	/** The most colors a spec can use. */
+	public static final int MAX_COLORS = PALETTE.length();
+
+	// the PALETTE index of every ASCII character, or -1
+	private static final byte[] PALETTE_INDEX = new byte[128];
+	static {
+		Arrays.fill(PALETTE_INDEX, (byte) -1);
+		for (int i = 0; i < PALETTE.length(); i++) {
+			PALETTE_INDEX[PALETTE.charAt(i)] = (byte) i;
+		}
+	}
+
+	/** The classic game: 4 pegs, 6 colors, duplicates allowed. */
+	public static final MastermindSpec CLASSIC = new MastermindSpec(4, 6, true);
+	/** Super Mastermind: 5 pegs, 8 colors, duplicates allowed. */
+	public static final MastermindSpec SUPER = new MastermindSpec(5, 8, true);
+
+	private final int pegs;
+	private final int colors;
+	private final boolean duplicates;
+	private final String colorChars;
+
+	/**
+	 * This is the constructor for a spec.
+	 *
+	 * @param pegs The number of pegs in a code (1 to MAX_PEGS)
+	 * @param colors The number of colors a peg can take (2 to MAX_COLORS)
+	 * @param duplicates Whether the secret may use a color more than once
+	 * @throws IllegalArgumentException When the sizes are out of range, or
+	 * there are fewer colors than pegs without duplicates
+	 */
+	public MastermindSpec(int pegs, int colors, boolean duplicates) {
+		if (pegs < 1 || pegs > MAX_PEGS) {
+			throw new IllegalArgumentException("pegs must be between 1 and " + MAX_PEGS + ": " + pegs);
+		}
+		if (colors < 2 || colors > MAX_COLORS) {
+			throw new IllegalArgumentException("colors must be between 2 and " + MAX_COLORS + ": " + colors);
+		}
+		if (!duplicates && colors < pegs) {
+			throw new IllegalArgumentException("need at least as many colors as pegs without duplicates");
+		}
+		this.pegs = pegs;
+		this.colors = colors;
+		this.duplicates = duplicates;
+		this.colorChars = PALETTE.substring(0, colors);
+	}
+
+	/**
+	 * Makes a spec from command line arguments.
+	 *
+	 * It understands "-pegs N", "-colors K" and "-unique"
+	 * (no duplicate colors in the secret), and ignores
+	 * anything else. Missing values come from CLASSIC.
+	 *
+	 * @param args The command arguments
+	 * @return The spec described by the arguments
+	 * @throws IllegalArgumentException When a value is missing or out of range
+	 */
+	public static MastermindSpec fromArgs(String[] args) {
+		int pegs = CLASSIC.pegs;
+		int colors = CLASSIC.colors;
+		boolean duplicates = CLASSIC.duplicates;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-pegs") || args[i].equals("-colors")) {
+				if (i + 1 == args.length) {
+					throw new IllegalArgumentException(args[i] + " needs a number");
+				}
+				int value = Integer.parseInt(args[i + 1]);
+				if (args[i].equals("-pegs")) {
+					pegs = value;
+				} else {
+					colors = value;
+				}
+				i++;
+			} else if (args[i].equals("-unique")) {
+				duplicates = false;
+			}
+		}
+		if (pegs == CLASSIC.pegs && colors == CLASSIC.colors && duplicates == CLASSIC.duplicates) {
+			return CLASSIC;
+		}
+		return new MastermindSpec(pegs, colors, duplicates);
+	}
+
+	/**
+	 * Get the number of pegs in a code.
+	 *
+	 * @return The number of pegs
+	 */
+	public int getPegs() {
+		return pegs;
+	}
+
+	/**
+	 * Get the number of colors a peg can take.
+	 *
+	 * @return The number of colors
+	 */
+	public int getColors() {
+		return colors;
+	}
+
+	/**
+	 * Get whether the secret may use a color more than once.
+	 *
+	 * @return Whether duplicates are allowed
+	 */
+	public boolean allowsDuplicates() {
+		return duplicates;
+	}
+
+	/**
+	 * Get the legal color characters, in index order.
+	 *
+	 * @return The legal colors as a String
+	 */
+	public String getColorChars() {
+		return colorChars;
+	}
+
+	/**
+	 * Get the color character with the given index.
+	 *
+	 * @param index A color index (0 to getColors()-1)
+	 * @return The color character
+	 */
+	public char colorChar(int index) {
+		return colorChars.charAt(index);
+	}
+
+	/**
+	 * Get the index of a color character.
+	 *
+	 * This is a lookup in a table shared by every spec,
+	 * so it doesn't search the color characters.
+	 *
+	 * @param color A color character
+	 * @return The index of the color, or -1 if it isn't legal in this spec
+	 */
+	public int colorIndex(char color) {
+		int index = color < PALETTE_INDEX.length ? PALETTE_INDEX[color] : -1;
+		return index < colors ? index : -1;
+	}
+
+	/**
+	 * Get how many different secrets this spec allows.
+	 *
+	 * @return The number of codes (may overflow for huge specs)
+	 */
+	public long codeCount() {
+		long count = 1;
+		for (int i = 0; i < pegs; i++) {
+			count *= duplicates ? colors : colors - i;
+		}
+		return count;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof MastermindSpec)) {
+			return false;
+		}
+		MastermindSpec spec = (MastermindSpec) other;
+		return pegs == spec.pegs && colors == spec.colors && duplicates == spec.duplicates;
+	}
+
+	@Override
+	public int hashCode() {
+		return (pegs * 31 + colors) * 2 + (duplicates ? 1 : 0);
+	}
+
+	@Override
+	public String toString() {
+		return pegs + "x" + colors + (duplicates ? "" : " unique");
+	}
+}
@@ -0,0 +1,221 @@
+package server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+import controller.Feedback;
+import controller.GuessParser;
+import controller.MastermindController;
+import controller.MastermindIllegalColorException;
+import controller.MastermindIllegalLengthException;
+import controller.MastermindScorer;
+import controller.PackedScorer;
+import model.GameEventBus;
+import model.MastermindModel;
+import model.MastermindSpec;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file plays the game sessions of one
+ * server connection. It follows the text view's rules:
+ * "play" starts the first game and "quit" leaves, after a
+ * game "yes" starts another and "no" leaves, and a game
+ * is lost after 10 wrong guesses. When the server keeps a
+ * GameJournal, every game gets an id, and "resume id"
+ * carries on a game in flight, even one from before the
+ * server restarted. Every line the client sends gets
+ * exactly one line back:
+ *
+ *   WELCOME spec        (once, when the client connects)
+ *   START [id]          a game has started, send guesses (the id only with a journal)
+ *   RESUMED id n turns  a saved game is carried on after its first n guesses,
+ *                       each sent back as the guess and its b w counts
+ *   FEEDBACK b w        right color right place / wrong place counts
+ *   WIN n               the guess was right, on guess n
+ *   LOSE solution       the 10th guess was wrong
+ *   INVALID message     the guess was the wrong length or had a bad color
+ *   UNKNOWN             the line didn't mean anything right now
+ *   BYE                 the connection is closing
+ *
+ */
+class GameConnection implements Runnable {
+	private static final int MAX_GUESSES = 10;
+
+	private final Socket socket;
+	private final MastermindSpec spec;
+	private final AtomicLong gamesPlayed;
+	private final GameEventBus events;
+	private final GameJournal journal;
+	// the INVALID replies, by GuessParser error code
+	private final String[] invalidReplies;
+	// whether guesses pack into int codes, which every spec a journal keeps does
+	private final boolean packedCodes;
+
+	/**
+	 * This is the constructor for a connection.
+	 *
+	 * @param socket The client's socket
+	 * @param spec The MastermindSpec of the games to play
+	 * @param gamesPlayed The server's count of finished games
+	 * @param events The server's GameEventBus, shared by every game
+	 * @param journal The server's GameJournal, or null to keep no games across restarts
+	 */
+	GameConnection(Socket socket, MastermindSpec spec, AtomicLong gamesPlayed, GameEventBus events, GameJournal journal) {
+		this.socket = socket;
+		this.spec = spec;
+		this.gamesPlayed = gamesPlayed;
+		this.events = events;
+		this.journal = journal;
+		this.packedCodes = spec.getPegs() <= PackedScorer.MAX_PEGS;
+		GuessParser parser = new GuessParser(spec);
+		this.invalidReplies = new String[] { null,
+				"INVALID " + parser.getMessage(GuessParser.ILLEGAL_LENGTH).replace('\n', ' '),
+				"INVALID " + parser.getMessage(GuessParser.ILLEGAL_COLOR).replace('\n', ' ') };
+	}
+
+	@Override
+	public void run() {
+		try (Socket s = socket;
+				BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII));
+				Writer out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.US_ASCII))) {
+			reply(out, "WELCOME " + spec);
+
+			boolean firstGame = true;
+			MastermindController control = null;
+			int counter = 1;
+			long gameId = 0;
+			String line;
+			try {
+				while ((line = in.readLine()) != null) {
+					if (control == null) {
+						// between games
+						if ((firstGame && line.equals("play")) || (!firstGame && line.equals("yes"))) {
+							control = new MastermindController(new MastermindModel(spec, events));
+							counter = 1;
+							if (journal != null) {
+								gameId = journal.started(control.getPackedScorer().encode(control.model.getSolution()));
+								reply(out, "START " + gameId);
+							} else {
+								reply(out, "START");
+							}
+						} else if (journal != null && line.startsWith("resume ")) {
+							SavedGame saved = claim(line.substring("resume ".length()));
+							if (saved == null) {
+								reply(out, "UNKNOWN");
+								continue;
+							}
+							PackedScorer scorer = PackedScorer.forSpec(spec);
+							control = new MastermindController(new MastermindModel(spec, scorer.decode(saved.getSecret()), events));
+							gameId = saved.getId();
+							StringBuilder resumed = new StringBuilder("RESUMED ").append(gameId).append(' ').append(saved.getGuessCount());
+							// the saved guesses are played again, so the game's history is whole
+							for (counter = 1; counter <= saved.getGuessCount(); counter++) {
+								String guess = scorer.decode(saved.getGuess(counter - 1));
+								int feedback = control.scoreCode(saved.getGuess(counter - 1));
+								int black = MastermindScorer.blacks(feedback);
+								int white = MastermindScorer.whites(feedback);
+								control.model.recordGuess(guess, black, white, counter);
+								resumed.append(' ').append(guess).append(' ').append(black).append(' ').append(white);
+							}
+							reply(out, resumed.toString());
+						} else if ((firstGame && line.equals("quit")) || (!firstGame && line.equals("no"))) {
+							reply(out, "BYE");
+							return;
+						} else {
+							reply(out, "UNKNOWN");
+						}
+						continue;
+					}
+
+					Feedback feedback;
+					int guess = 0;
+					if (packedCodes) {
+						// the guess is read once, and bad ones are turned away without building an exception
+						long parsed = control.parse(line);
+						if (parsed < 0) {
+							reply(out, invalidReplies[GuessParser.error(parsed)]);
+							continue;
+						}
+						guess = (int) parsed;
+						feedback = control.scoreParsed(guess);
+					} else {
+						// codes too long to pack are checked by score itself
+						try {
+							feedback = control.score(line);
+						} catch (MastermindIllegalColorException | MastermindIllegalLengthException e) {
+							reply(out, "INVALID " + e.getMessage().replace('\n', ' '));
+							continue;
+						}
+					}
+					control.model.recordGuess(line, feedback.getBlack(), feedback.getWhite(), counter);
+					control.model.updateGameOver(feedback.isSolved(), counter);
+					// the journal hears of the guess before the client does
+					if (journal != null) {
+						if (feedback.isSolved() || counter == MAX_GUESSES) {
+							journal.ended(gameId);
+						} else {
+							journal.guessed(gameId, guess);
+						}
+					}
+					if (feedback.isSolved()) {
+						reply(out, "WIN " + counter);
+						control = null;
+					} else if (counter == MAX_GUESSES) {
+						reply(out, "LOSE " + control.model);
+						control = null;
+					} else {
+						reply(out, "FEEDBACK " + feedback);
+						counter++;
+					}
+					if (control == null) {
+						firstGame = false;
+						gamesPlayed.incrementAndGet();
+					}
+				}
+			} finally {
+				// a game left unfinished stays in flight for the player to resume
+				if (journal != null && control != null) {
+					journal.release(gameId);
+				}
+			}
+		} catch (IOException e) {
+			// the client went away, nothing to clean up beyond the socket
+		}
+	}
+
+	/**
+	 * Claims a game in flight from the journal.
+	 *
+	 * @param id The game's id, as the client sent it
+	 * @return The saved game, or null if it can't be claimed
+	 */
+	private SavedGame claim(String id) {
+		try {
+			return journal.claim(Long.parseLong(id.trim()));
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Sends one line to the client.
+	 *
+	 * @param out The writer for the client's socket
+	 * @param line The line to send
+	 * @throws IOException When the client is gone
+	 */
+	private static void reply(Writer out, String line) throws IOException {
+		out.write(line);
+		out.write('\n');
+		out.flush();
+	}
+}
@@ -0,0 +1,492 @@
+package server;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+import controller.PackedScorer;
+import model.MastermindSpec;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file keeps the games in flight on a
+ * server safe across restarts. It lives in a folder with
+ * two files: games.snapshot holds every game in flight at
+ * one point (see SavedGame), and games.journal holds what
+ * happened after that point, as records of a few bytes
+ * each: a game started with its secret, a guess was played,
+ * or a game ended.
+ *
+ * Recording an event only adds its bytes to a buffer in
+ * memory. A flusher thread writes the buffer out as one
+ * frame, with its length and CRC32, and forces it to disk
+ * once per flush interval, so a crash loses at most the
+ * last interval. On opening, the snapshot is read, the
+ * journal's frames are replayed up to the first one that
+ * is cut off or damaged, and the result is written out as
+ * a new snapshot with an empty journal. The journal is
+ * also folded into a new snapshot while the server runs,
+ * once it grows past 64 MB. The snapshot and journal carry
+ * a generation number, so a journal that was already
+ * folded into the snapshot is never replayed twice.
+ *
+ */
+public class GameJournal implements AutoCloseable {
+	private static final int SNAPSHOT_MAGIC = 0x4D4D5353; // "MMSS"
+	private static final int JOURNAL_MAGIC = 0x4D4D4A4C; // "MMJL"
+	private static final int VERSION = 1;
+	// magic, version, pegs, colors, duplicates, generation
+	private static final int JOURNAL_HEADER_BYTES = 28;
+	// the length and CRC32 before each frame
+	private static final int FRAME_HEADER_BYTES = 8;
+	// a journal this big is folded into a new snapshot
+	private static final long COMPACT_BYTES = 64 << 20;
+
+	private static final byte STARTED = 1;
+	private static final byte GUESSED = 2;
+	private static final byte ENDED = 3;
+
+	private final MastermindSpec spec;
+	private final int codeBytes;
+	private final Path snapshotPath;
+	private final Path journalPath;
+	private final long flushNanos;
+	private final Thread flusher;
+	private final FileChannel journal;
+
+	// everything below is guarded by this, except where noted
+	private final Map<Long, SavedGame> games = new HashMap<>();
+	private final Set<Long> claimed = new HashSet<>();
+	private long nextId = 1;
+	private long generation;
+	private ByteBuffer pending = ByteBuffer.allocate(1 << 16);
+	private long appended;
+	private long durable;
+	private IOException failure;
+	private boolean closed;
+	// only touched by the flusher once it runs
+	private long journalBytes;
+
+	/**
+	 * This is the constructor for a journal, once its games are recovered.
+	 */
+	private GameJournal(MastermindSpec spec, Path dir, long flushNanos) throws IOException {
+		this.spec = spec;
+		this.codeBytes = SavedGame.codeBytes(spec);
+		this.snapshotPath = dir.resolve("games.snapshot");
+		this.journalPath = dir.resolve("games.journal");
+		this.flushNanos = flushNanos;
+		recover();
+		generation++;
+		writeSnapshot(new ArrayList<>(games.values()), nextId, generation);
+		this.journal = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		startJournal(generation);
+		this.flusher = new Thread(this::flushLoop, "mastermind-journal");
+		flusher.setDaemon(true);
+		flusher.start();
+	}
+
+	/**
+	 * Opens the journal in a folder, recovering the games
+	 * that were in flight when it was last closed or the
+	 * process died.
+	 *
+	 * @param dir The folder, made if it doesn't exist
+	 * @param spec The MastermindSpec of the games (at most 8 pegs)
+	 * @param flushNanos How long recorded events may wait to be written to disk
+	 * @return The journal
+	 * @throws IOException When the files can't be read or written, or are for another spec
+	 * @throws IllegalStateException When the spec has more pegs than fit in a packed code
+	 */
+	public static GameJournal open(Path dir, MastermindSpec spec, long flushNanos) throws IOException {
+		if (spec.getPegs() > PackedScorer.MAX_PEGS) {
+			throw new IllegalStateException(spec + " has too many pegs to pack");
+		}
+		Files.createDirectories(dir);
+		return new GameJournal(spec, dir, flushNanos);
+	}
+
+	/**
+	 * Records a new game.
+	 *
+	 * The game is claimed by the caller right away.
+	 *
+	 * @param secret The packed secret
+	 * @return The game's id
+	 */
+	public synchronized long started(int secret) {
+		long id = nextId++;
+		games.put(id, new SavedGame(id, secret));
+		claimed.add(id);
+		record(STARTED, id, secret);
+		return id;
+	}
+
+	/**
+	 * Records a guess that was played.
+	 *
+	 * @param id The game's id
+	 * @param guess The packed guess
+	 */
+	public synchronized void guessed(long id, int guess) {
+		SavedGame game = games.get(id);
+		if (game != null) {
+			game.add(guess);
+			record(GUESSED, id, guess);
+		}
+	}
+
+	/**
+	 * Records that a game was won or lost, so it is no
+	 * longer in flight.
+	 *
+	 * @param id The game's id
+	 */
+	public synchronized void ended(long id) {
+		if (games.remove(id) != null) {
+			claimed.remove(id);
+			record(ENDED, id, 0);
+		}
+	}
+
+	/**
+	 * Claims a game in flight to carry on with it, so no
+	 * one else can at the same time.
+	 *
+	 * @param id The game's id
+	 * @return A copy of the game, or null if it isn't in flight or is already claimed
+	 */
+	public synchronized SavedGame claim(long id) {
+		SavedGame game = games.get(id);
+		if (game == null || !claimed.add(id)) {
+			return null;
+		}
+		return game.copy();
+	}
+
+	/**
+	 * Lets go of a game without ending it, such as when its
+	 * player went away, so it can be claimed again.
+	 *
+	 * @param id The game's id
+	 */
+	public synchronized void release(long id) {
+		claimed.remove(id);
+	}
+
+	/**
+	 * Get copies of the games in flight.
+	 *
+	 * @return The games
+	 */
+	public synchronized Collection<SavedGame> getGames() {
+		List<SavedGame> copies = new ArrayList<>(games.size());
+		for (SavedGame game : games.values()) {
+			copies.add(game.copy());
+		}
+		return copies;
+	}
+
+	/**
+	 * Waits until every event recorded so far is on disk.
+	 *
+	 * @throws IOException When the journal couldn't be written
+	 * @throws InterruptedException When interrupted while waiting
+	 */
+	public void sync() throws IOException, InterruptedException {
+		LockSupport.unpark(flusher);
+		synchronized (this) {
+			long target = appended;
+			while (durable < target && failure == null) {
+				wait();
+			}
+			if (failure != null) {
+				throw failure;
+			}
+		}
+	}
+
+	/**
+	 * Writes out what is left and closes the files.
+	 *
+	 * @throws IOException When the journal couldn't be written
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (this) {
+			closed = true;
+		}
+		LockSupport.unpark(flusher);
+		try {
+			flusher.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		journal.close();
+		synchronized (this) {
+			if (failure != null) {
+				throw failure;
+			}
+		}
+	}
+
+	/**
+	 * Adds a record to the buffer, holding the lock.
+	 */
+	private void record(byte type, long id, int code) {
+		if (failure != null) {
+			throw new UncheckedIOException("the journal can't be written", failure);
+		}
+		if (closed) {
+			throw new IllegalStateException("the journal is closed");
+		}
+		if (pending.remaining() < 1 + SavedGame.MAX_VAR_LONG + codeBytes) {
+			ByteBuffer bigger = ByteBuffer.allocate(pending.capacity() * 2);
+			pending.flip();
+			bigger.put(pending);
+			pending = bigger;
+		}
+		pending.put(type);
+		SavedGame.putVarLong(pending, id);
+		if (type != ENDED) {
+			SavedGame.putCode(pending, code, codeBytes);
+		}
+		appended++;
+	}
+
+	/**
+	 * Writes the buffer out once per flush interval, until closed.
+	 */
+	private void flushLoop() {
+		ByteBuffer spare = ByteBuffer.allocate(pending.capacity());
+		boolean stopping = false;
+		while (true) {
+			if (!stopping) {
+				LockSupport.parkNanos(flushNanos);
+			}
+			ByteBuffer batch;
+			long upTo;
+			List<SavedGame> copies = null;
+			long firstId = 0;
+			long nextGeneration = 0;
+			synchronized (this) {
+				stopping = closed;
+				if (pending.position() == 0) {
+					if (stopping) {
+						return;
+					}
+					continue;
+				}
+				batch = pending;
+				pending = spare;
+				upTo = appended;
+				if (journalBytes > COMPACT_BYTES) {
+					// the snapshot takes in everything recorded so far, batch included
+					copies = new ArrayList<>(games.size());
+					for (SavedGame game : games.values()) {
+						copies.add(game.copy());
+					}
+					firstId = nextId;
+					nextGeneration = ++generation;
+				}
+			}
+			try {
+				batch.flip();
+				if (copies != null) {
+					writeSnapshot(copies, firstId, nextGeneration);
+					journal.truncate(0);
+					startJournal(nextGeneration);
+				} else {
+					writeFrame(batch);
+				}
+				synchronized (this) {
+					durable = upTo;
+					notifyAll();
+				}
+			} catch (IOException e) {
+				synchronized (this) {
+					failure = e;
+					notifyAll();
+				}
+				return;
+			}
+			batch.clear();
+			spare = batch;
+		}
+	}
+
+	/**
+	 * Appends a frame to the journal and forces it to disk.
+	 */
+	private void writeFrame(ByteBuffer payload) throws IOException {
+		CRC32 crc = new CRC32();
+		crc.update(payload.array(), 0, payload.limit());
+		ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_BYTES);
+		header.putInt(payload.limit()).putInt((int) crc.getValue()).flip();
+		long position = journal.position();
+		ByteBuffer[] frame = { header, payload };
+		while (payload.hasRemaining()) {
+			journal.write(frame);
+		}
+		journal.force(false);
+		journalBytes += journal.position() - position;
+	}
+
+	/**
+	 * Starts an empty journal of a generation and forces it to disk.
+	 */
+	private void startJournal(long generation) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(JOURNAL_HEADER_BYTES);
+		header.putInt(JOURNAL_MAGIC).putInt(VERSION).putInt(spec.getPegs()).putInt(spec.getColors())
+				.putInt(spec.allowsDuplicates() ? 1 : 0).putLong(generation).flip();
+		journal.position(0);
+		while (header.hasRemaining()) {
+			journal.write(header);
+		}
+		journal.force(true);
+		journalBytes = JOURNAL_HEADER_BYTES;
+	}
+
+	/**
+	 * Writes a snapshot to a temporary file, forces it to
+	 * disk and then moves it over the old one, so there is
+	 * always a whole snapshot on disk.
+	 */
+	private void writeSnapshot(List<SavedGame> snapshot, long firstId, long generation) throws IOException {
+		int size = 40 + 4;
+		for (SavedGame game : snapshot) {
+			size += game.bytes(codeBytes);
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(size);
+		buffer.putInt(SNAPSHOT_MAGIC).putInt(VERSION).putInt(spec.getPegs()).putInt(spec.getColors())
+				.putInt(spec.allowsDuplicates() ? 1 : 0).putLong(generation).putLong(firstId).putInt(snapshot.size());
+		for (SavedGame game : snapshot) {
+			game.write(buffer, codeBytes);
+		}
+		CRC32 crc = new CRC32();
+		crc.update(buffer.array(), 0, buffer.position());
+		buffer.putInt((int) crc.getValue()).flip();
+		Path temporary = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(true);
+		}
+		Files.move(temporary, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Reads the snapshot and replays the journal on top of it.
+	 */
+	private void recover() throws IOException {
+		if (Files.exists(snapshotPath)) {
+			ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(snapshotPath));
+			if (buffer.limit() < 44 || buffer.getInt() != SNAPSHOT_MAGIC) {
+				throw new IOException(snapshotPath + " is not a session snapshot");
+			}
+			checkHeader(buffer, snapshotPath);
+			CRC32 crc = new CRC32();
+			crc.update(buffer.array(), 0, buffer.limit() - 4);
+			if ((int) crc.getValue() != buffer.getInt(buffer.limit() - 4)) {
+				throw new IOException(snapshotPath + " is damaged");
+			}
+			generation = buffer.getLong();
+			nextId = buffer.getLong();
+			int count = buffer.getInt();
+			for (int i = 0; i < count; i++) {
+				SavedGame game = SavedGame.read(buffer, codeBytes);
+				games.put(game.getId(), game);
+			}
+		}
+		if (!Files.exists(journalPath)) {
+			return;
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(journalPath));
+		if (buffer.limit() < JOURNAL_HEADER_BYTES) {
+			return; // cut off before its header was forced, so there is nothing in it
+		}
+		if (buffer.getInt() != JOURNAL_MAGIC) {
+			throw new IOException(journalPath + " is not a game journal");
+		}
+		checkHeader(buffer, journalPath);
+		if (buffer.getLong() != generation) {
+			return; // already in the snapshot
+		}
+		CRC32 crc = new CRC32();
+		while (buffer.remaining() >= FRAME_HEADER_BYTES) {
+			int length = buffer.getInt();
+			int expected = buffer.getInt();
+			if (length <= 0 || length > buffer.remaining()) {
+				break;
+			}
+			crc.reset();
+			crc.update(buffer.array(), buffer.position(), length);
+			if ((int) crc.getValue() != expected) {
+				break;
+			}
+			ByteBuffer frame = (ByteBuffer) buffer.slice().limit(length);
+			buffer.position(buffer.position() + length);
+			try {
+				replay(frame);
+			} catch (BufferUnderflowException e) {
+				throw new IOException(journalPath + " has a frame that doesn't parse", e);
+			}
+		}
+	}
+
+	/**
+	 * Applies the records of one frame.
+	 */
+	private void replay(ByteBuffer frame) {
+		while (frame.hasRemaining()) {
+			byte type = frame.get();
+			long id = SavedGame.getVarLong(frame);
+			if (type == STARTED) {
+				games.put(id, new SavedGame(id, SavedGame.getCode(frame, codeBytes)));
+				nextId = Math.max(nextId, id + 1);
+			} else if (type == GUESSED) {
+				int guess = SavedGame.getCode(frame, codeBytes);
+				SavedGame game = games.get(id);
+				if (game != null) {
+					game.add(guess);
+				}
+			} else {
+				games.remove(id);
+			}
+		}
+	}
+
+	/**
+	 * Checks that a file's header is for this journal's spec.
+	 */
+	private void checkHeader(ByteBuffer buffer, Path path) throws IOException {
+		int version = buffer.getInt();
+		if (version != VERSION) {
+			throw new IOException(path + " is version " + version + ", not " + VERSION);
+		}
+		MastermindSpec saved = new MastermindSpec(buffer.getInt(), buffer.getInt(), buffer.getInt() != 0);
+		if (!saved.equals(spec)) {
+			throw new IOException(path + " is for " + saved + " games, not " + spec);
+		}
+	}
+}
@@ -0,0 +1,210 @@
+package server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import controller.MastermindScorer;
+import controller.PackedScorer;
+import model.MastermindSpec;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file is a stand-in client for load
+ * testing MastermindServer. It opens many connections at
+ * once and has each one play games with a simple bot that
+ * always guesses the first code still consistent with the
+ * feedback. When it is done it reports the games per
+ * second and the round-trip latency of the guesses.
+ * Without "-port" it starts its own server in the same
+ * process, so it can be tried out with nothing else running.
+ *
+ */
+public class MastermindLoadClient {
+
+	/**
+	 * This inner class holds what one connection measured.
+	 */
+	private static class Result {
+		long games;
+		long[] latencies = new long[1024];
+		int guesses;
+
+		void record(long nanos) {
+			if (guesses == latencies.length) {
+				latencies = Arrays.copyOf(latencies, guesses * 2);
+			}
+			latencies[guesses++] = nanos;
+		}
+	}
+
+	/**
+	 * Plays games over one connection.
+	 *
+	 * @param host The server's host
+	 * @param port The server's port
+	 * @param games How many games to play
+	 * @param scorer The PackedScorer for the server's spec
+	 * @param allCodes Every code of the spec, packed
+	 * @return What the connection measured
+	 * @throws IOException When the connection fails
+	 */
+	private static Result play(String host, int port, int games, PackedScorer scorer, int[] allCodes) throws IOException {
+		Result result = new Result();
+		int solved = scorer.getSpec().getPegs();
+		try (Socket socket = new Socket(host, port);
+				BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+				Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII))) {
+			socket.setTcpNoDelay(true);
+			expect(in.readLine(), "WELCOME");
+			int[] candidates = new int[allCodes.length];
+			for (int game = 0; game < games; game++) {
+				expect(send(out, in, game == 0 ? "play" : "yes"), "START");
+				System.arraycopy(allCodes, 0, candidates, 0, allCodes.length);
+				int count = allCodes.length;
+				while (true) {
+					int guess = candidates[0];
+					long start = System.nanoTime();
+					String reply = send(out, in, scorer.decode(guess));
+					result.record(System.nanoTime() - start);
+					if (reply.startsWith("WIN") || reply.startsWith("LOSE")) {
+						break;
+					}
+					expect(reply, "FEEDBACK");
+					String[] parts = reply.split(" ");
+					int black = Integer.parseInt(parts[1]);
+					int white = Integer.parseInt(parts[2]);
+					if (black == solved) {
+						throw new IOException("server said " + reply + " without a WIN");
+					}
+					count = scorer.filter(guess, MastermindScorer.feedback(black, white), candidates, count);
+				}
+				result.games++;
+			}
+			expect(send(out, in, "no"), "BYE");
+		}
+		return result;
+	}
+
+	/**
+	 * Sends one line and waits for the reply.
+	 */
+	private static String send(Writer out, BufferedReader in, String line) throws IOException {
+		out.write(line);
+		out.write('\n');
+		out.flush();
+		String reply = in.readLine();
+		if (reply == null) {
+			throw new IOException("server closed the connection");
+		}
+		return reply;
+	}
+
+	/**
+	 * Checks that a reply starts with the expected word.
+	 */
+	private static void expect(String reply, String word) throws IOException {
+		if (reply == null || !reply.startsWith(word)) {
+			throw new IOException("expected " + word + " but got " + reply);
+		}
+	}
+
+	/**
+	 * Runs the load test and prints the report.
+	 *
+	 * It understands "-host H" (default localhost), "-port N"
+	 * (default: start a server in this process),
+	 * "-connections N" (default 1000), "-games N" per
+	 * connection (default 20), and the MastermindSpec.fromArgs
+	 * arguments, which must match the server's spec.
+	 *
+	 * @param args The command arguments
+	 * @throws Exception When the test can't run
+	 */
+	public static void main(String[] args) throws Exception {
+		String host = "localhost";
+		int port = -1;
+		int connections = 1000;
+		int games = 20;
+		for (int i = 0; i + 1 < args.length; i++) {
+			if (args[i].equals("-host")) {
+				host = args[i + 1];
+			} else if (args[i].equals("-port")) {
+				port = Integer.parseInt(args[i + 1]);
+			} else if (args[i].equals("-connections")) {
+				connections = Integer.parseInt(args[i + 1]);
+			} else if (args[i].equals("-games")) {
+				games = Integer.parseInt(args[i + 1]);
+			}
+		}
+		MastermindSpec spec = MastermindSpec.fromArgs(args);
+		PackedScorer scorer = PackedScorer.forSpec(spec);
+		int[] allCodes = scorer.allCodes();
+
+		MastermindServer server = null;
+		if (port < 0) {
+			server = new MastermindServer(0, spec);
+			server.start();
+			port = server.getPort();
+		}
+
+		ExecutorService clients = MastermindServer.newThreadPerTaskExecutor();
+		List<Future<Result>> futures = new ArrayList<>();
+		long start = System.nanoTime();
+		for (int i = 0; i < connections; i++) {
+			String h = host;
+			int p = port;
+			int g = games;
+			futures.add(clients.submit(() -> play(h, p, g, scorer, allCodes)));
+		}
+		long totalGames = 0;
+		int totalGuesses = 0;
+		List<Result> results = new ArrayList<>();
+		for (Future<Result> future : futures) {
+			Result result = future.get();
+			results.add(result);
+			totalGames += result.games;
+			totalGuesses += result.guesses;
+		}
+		long elapsed = System.nanoTime() - start;
+		clients.shutdown();
+		if (server != null) {
+			server.close();
+		}
+
+		long[] latencies = new long[totalGuesses];
+		int n = 0;
+		for (Result result : results) {
+			System.arraycopy(result.latencies, 0, latencies, n, result.guesses);
+			n += result.guesses;
+		}
+		Arrays.sort(latencies);
+		System.out.printf("%d connections, %d games, %d guesses in %.2f s%n",
+				connections, totalGames, totalGuesses, elapsed / 1e9);
+		System.out.printf("games/sec:          %.0f%n", totalGames / (elapsed / 1e9));
+		System.out.printf("guess latency p50:  %.3f ms%n", percentile(latencies, 0.50) / 1e6);
+		System.out.printf("guess latency p99:  %.3f ms%n", percentile(latencies, 0.99) / 1e6);
+	}
+
+	/**
+	 * Get a percentile of sorted values.
+	 */
+	private static long percentile(long[] sorted, double fraction) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		return sorted[Math.min(sorted.length - 1, (int) (sorted.length * fraction))];
+	}
+}
@@ -0,0 +1,215 @@
+package server;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import metrics.GameMetrics;
+import model.GameEventBus;
+import model.MastermindSpec;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file is a headless Mastermind server.
+ * It accepts TCP connections and plays one game session
+ * per connection with a line protocol (see GameConnection)
+ * that follows the same play/guess/feedback rules as the
+ * text view. Each connection gets its own thread: a virtual
+ * thread when the JVM has them (Java 21 and up), and a
+ * pooled platform thread otherwise. With a GameJournal,
+ * the games in flight survive a restart of the server.
+ *
+ */
+public class MastermindServer implements AutoCloseable {
+	private final MastermindSpec spec;
+	private final ServerSocket serverSocket;
+	private final ExecutorService connections;
+	private final AtomicLong gamesPlayed = new AtomicLong();
+	private final GameEventBus events = new GameEventBus();
+	private final GameJournal journal;
+	private Thread acceptor;
+
+	/**
+	 * This is the constructor for the server.
+	 *
+	 * It binds to the port on the loopback address
+	 * right away, but doesn't accept anyone until start.
+	 *
+	 * @param port The port to listen on, or 0 for any free port
+	 * @param spec The MastermindSpec of the games to host
+	 * @throws IOException When the port can't be bound
+	 */
+	public MastermindServer(int port, MastermindSpec spec) throws IOException {
+		this(port, spec, null);
+	}
+
+	/**
+	 * This is the constructor for a server that records its
+	 * games in a journal, so players can resume them after
+	 * the server restarts.
+	 *
+	 * @param port The port to listen on, or 0 for any free port
+	 * @param spec The MastermindSpec of the games to host
+	 * @param journal The GameJournal to record games in (closed by its owner), or null for none
+	 * @throws IOException When the port can't be bound
+	 */
+	public MastermindServer(int port, MastermindSpec spec, GameJournal journal) throws IOException {
+		this.spec = spec;
+		this.journal = journal;
+		this.serverSocket = new ServerSocket();
+		serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+		this.connections = newThreadPerTaskExecutor();
+	}
+
+	/**
+	 * Starts accepting connections on a background thread.
+	 */
+	public synchronized void start() {
+		if (acceptor != null) {
+			return;
+		}
+		acceptor = new Thread(this::acceptLoop, "mastermind-acceptor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	/**
+	 * Accepts connections until the server socket is closed.
+	 */
+	private void acceptLoop() {
+		while (!serverSocket.isClosed()) {
+			try {
+				Socket socket = serverSocket.accept();
+				socket.setTcpNoDelay(true);
+				connections.execute(new GameConnection(socket, spec, gamesPlayed, events, journal));
+			} catch (SocketException e) {
+				return; // the server socket was closed
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Get the port the server listens on.
+	 *
+	 * @return The local port
+	 */
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Get the event bus every game on this server
+	 * announces its events on, for metrics and
+	 * other watchers.
+	 *
+	 * @return The server's GameEventBus
+	 */
+	public GameEventBus getEvents() {
+		return events;
+	}
+
+	/**
+	 * Get how many games have ended (won or lost) on this server.
+	 *
+	 * @return The number of finished games
+	 */
+	public long getGamesPlayed() {
+		return gamesPlayed.get();
+	}
+
+	/**
+	 * Stops accepting connections and waits briefly
+	 * for the open ones to finish.
+	 */
+	@Override
+	public void close() throws IOException {
+		serverSocket.close();
+		connections.shutdown();
+		try {
+			connections.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Makes an executor that runs every task on a new thread.
+	 *
+	 * It uses Executors.newVirtualThreadPerTaskExecutor when
+	 * the JVM has it, found by reflection so the code still
+	 * builds for older Java versions, and a cached thread
+	 * pool otherwise.
+	 *
+	 * @return The executor
+	 */
+	static ExecutorService newThreadPerTaskExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool(task -> {
+				Thread thread = new Thread(task);
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+	/**
+	 * Runs a server until the process is killed.
+	 *
+	 * It understands "-port N" (default 4444), "-journal DIR"
+	 * to keep games in flight across restarts in a GameJournal
+	 * in that folder, "-flush MS" for how often the journal is
+	 * forced to disk (default 10), and the MastermindSpec.fromArgs
+	 * arguments. The server's GameMetrics are shown over JMX.
+	 *
+	 * @param args The command arguments
+	 * @throws Exception When the server can't start
+	 */
+	public static void main(String[] args) throws Exception {
+		int port = 4444;
+		String journalDir = null;
+		double flush = 10;
+		for (int i = 0; i + 1 < args.length; i++) {
+			if (args[i].equals("-port")) {
+				port = Integer.parseInt(args[i + 1]);
+			} else if (args[i].equals("-journal")) {
+				journalDir = args[i + 1];
+			} else if (args[i].equals("-flush")) {
+				flush = Double.parseDouble(args[i + 1]);
+			}
+		}
+		MastermindSpec spec = MastermindSpec.fromArgs(args);
+		GameJournal journal = null;
+		if (journalDir != null) {
+			journal = GameJournal.open(Paths.get(journalDir), spec, (long) (flush * 1e6));
+			System.out.println("Recovered " + journal.getGames().size() + " games in flight from " + journalDir);
+			GameJournal opened = journal;
+			// a normal shutdown writes out the last events; a crash loses at most one flush interval
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				try {
+					opened.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}));
+		}
+		GameMetrics.register();
+		MastermindServer server = new MastermindServer(port, spec, journal);
+		server.start();
+		System.out.println("Mastermind server listening on port " + server.getPort());
+		server.acceptor.join();
+	}
+}
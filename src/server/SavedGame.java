@@ -0,0 +1,191 @@
+package server;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import controller.PackedScorer;
+import model.MastermindSpec;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file is the saved state of one game
+ * in flight: its id, its packed secret and the packed
+ * guesses played so far. The feedback isn't kept, since it
+ * can always be scored again from the secret. In a session
+ * snapshot a game takes its id, the secret, the number of
+ * guesses and then the guesses, with each code in just the
+ * bytes its pegs need (2 bytes for the classic game).
+ *
+ */
+public final class SavedGame {
+	private final long id;
+	private final int secret;
+	private int[] guesses;
+	private int guessCount;
+
+	/**
+	 * This is the constructor for a game with no guesses yet.
+	 *
+	 * @param id The game's id
+	 * @param secret The packed secret
+	 */
+	SavedGame(long id, int secret) {
+		this.id = id;
+		this.secret = secret;
+		this.guesses = new int[4];
+	}
+
+	/**
+	 * Adds a guess that was played.
+	 *
+	 * @param guess The packed guess
+	 */
+	void add(int guess) {
+		if (guessCount == guesses.length) {
+			guesses = Arrays.copyOf(guesses, guessCount * 2);
+		}
+		guesses[guessCount++] = guess;
+	}
+
+	/**
+	 * Makes a copy that doesn't change with this game.
+	 *
+	 * @return The copy
+	 */
+	SavedGame copy() {
+		SavedGame copy = new SavedGame(id, secret);
+		copy.guesses = Arrays.copyOf(guesses, Math.max(guessCount, 1));
+		copy.guessCount = guessCount;
+		return copy;
+	}
+
+	/**
+	 * Get the game's id.
+	 *
+	 * @return The id
+	 */
+	public long getId() {
+		return id;
+	}
+
+	/**
+	 * Get the game's secret.
+	 *
+	 * @return The packed secret
+	 */
+	public int getSecret() {
+		return secret;
+	}
+
+	/**
+	 * Get how many guesses have been played.
+	 *
+	 * @return The number of guesses
+	 */
+	public int getGuessCount() {
+		return guessCount;
+	}
+
+	/**
+	 * Get one of the guesses played.
+	 *
+	 * @param index From 0 up to getGuessCount()
+	 * @return The packed guess
+	 */
+	public int getGuess(int index) {
+		return guesses[index];
+	}
+
+	/**
+	 * Writes the game in its snapshot form.
+	 *
+	 * @param buffer Where to write, with room for bytes(codeBytes) more bytes
+	 * @param codeBytes How many bytes a code takes
+	 */
+	void write(ByteBuffer buffer, int codeBytes) {
+		putVarLong(buffer, id);
+		putCode(buffer, secret, codeBytes);
+		putVarLong(buffer, guessCount);
+		for (int i = 0; i < guessCount; i++) {
+			putCode(buffer, guesses[i], codeBytes);
+		}
+	}
+
+	/**
+	 * Reads a game in its snapshot form.
+	 *
+	 * @param buffer Where to read from
+	 * @param codeBytes How many bytes a code takes
+	 * @return The game
+	 */
+	static SavedGame read(ByteBuffer buffer, int codeBytes) {
+		SavedGame game = new SavedGame(getVarLong(buffer), getCode(buffer, codeBytes));
+		long count = getVarLong(buffer);
+		for (long i = 0; i < count; i++) {
+			game.add(getCode(buffer, codeBytes));
+		}
+		return game;
+	}
+
+	/**
+	 * Get the most bytes the game can take in its snapshot form.
+	 *
+	 * @param codeBytes How many bytes a code takes
+	 * @return The number of bytes
+	 */
+	int bytes(int codeBytes) {
+		return 2 * MAX_VAR_LONG + (1 + guessCount) * codeBytes;
+	}
+
+	/**
+	 * Get how many bytes a packed code of a spec needs.
+	 *
+	 * @param spec A MastermindSpec with at most 8 pegs
+	 * @return The number of bytes, from 1 to 4
+	 */
+	static int codeBytes(MastermindSpec spec) {
+		return (spec.getPegs() * PackedScorer.PEG_BITS + 7) / 8;
+	}
+
+	// the most bytes a long takes as a var long
+	static final int MAX_VAR_LONG = 10;
+
+	/**
+	 * Writes a long 7 bits to a byte, low bits first, with the
+	 * top bit of each byte set when more bytes follow.
+	 */
+	static void putVarLong(ByteBuffer buffer, long value) {
+		while ((value & ~0x7FL) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	static long getVarLong(ByteBuffer buffer) {
+		long value = 0;
+		for (int shift = 0; ; shift += 7) {
+			byte b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+	}
+
+	static void putCode(ByteBuffer buffer, int code, int codeBytes) {
+		for (int i = 0; i < codeBytes; i++) {
+			buffer.put((byte) (code >>> (8 * i)));
+		}
+	}
+
+	static int getCode(ByteBuffer buffer, int codeBytes) {
+		int code = 0;
+		for (int i = 0; i < codeBytes; i++) {
+			code |= (buffer.get() & 0xFF) << (8 * i);
+		}
+		return code;
+	}
+}
@@ -0,0 +1,619 @@
+package server;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import controller.MastermindController;
+import controller.MastermindScorer;
+import controller.PackedScorer;
+import model.MastermindModel;
+import model.MastermindSpec;
+import solver.Codebreaker;
+import solver.RandomConsistentSolver;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file checks archived game transcripts.
+ * A transcript is a text file with one game per line: the
+ * secret, then each guess followed by a colon and the
+ * right place and wrong place counts it got, all split by
+ * spaces, such as
+ *
+ *   rgby rrgg:10 rbyg:13 rgby:40
+ *
+ * Blank lines and lines starting with # are skipped. Every
+ * guess is scored again with the controller and checked
+ * against the feedback written down. A game is impossible
+ * when it can't be read, its secret isn't a code of the
+ * spec, it goes on after the secret was guessed, or it has
+ * more than 10 guesses. The file is mapped in regions that
+ * end on a line break, the regions are checked in parallel,
+ * and the codes are read straight from the bytes, so no
+ * Strings are made except for the problems reported. A
+ * line longer than 64 KB is an impossible game too.
+ *
+ */
+public class TranscriptVerifier {
+	// how many bytes one parallel task checks, about
+	private static final int REGION = 16 << 20;
+	// how many bytes of a region are copied out of the mapping at once
+	private static final int WINDOW = 1 << 16;
+	// a game can't have more guesses than a model allows
+	private static final int MAX_GUESSES = 10;
+	// how many problems are kept per file
+	private static final int MAX_PROBLEMS = 20;
+
+	private final MastermindSpec spec;
+	private final boolean useFeedbackTable;
+	private final int pegs;
+	private final int solved;
+	// the color index of each byte, or -1 for bytes that aren't colors of the spec
+	private final byte[] colorOf = new byte[256];
+
+	/**
+	 * This is the constructor for a verifier.
+	 *
+	 * @param spec The MastermindSpec of the games (at most 8 pegs)
+	 * @param useFeedbackTable Whether to score with the feedback table (classic game only)
+	 * @throws IllegalStateException When the spec has more pegs than fit in a packed code
+	 */
+	public TranscriptVerifier(MastermindSpec spec, boolean useFeedbackTable) {
+		if (spec.getPegs() > PackedScorer.MAX_PEGS) {
+			throw new IllegalStateException(spec + " has too many pegs to pack");
+		}
+		this.spec = spec;
+		this.useFeedbackTable = useFeedbackTable;
+		this.pegs = spec.getPegs();
+		this.solved = MastermindScorer.feedback(pegs, 0);
+		Arrays.fill(colorOf, (byte) -1);
+		for (int i = 0; i < spec.getColors(); i++) {
+			colorOf[spec.colorChar(i)] = (byte) i;
+		}
+	}
+
+	/**
+	 * Checks every game of a transcript file.
+	 *
+	 * @param file The transcript
+	 * @param pool The ForkJoinPool to check the regions on
+	 * @return The results, with problems numbered by file line
+	 * @throws IOException When the file can't be read
+	 * @throws InterruptedException When interrupted while waiting for the regions
+	 */
+	public Results verify(Path file, ForkJoinPool pool) throws IOException, InterruptedException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long[] bounds = regions(channel);
+			long start = System.nanoTime();
+			Results results;
+			try {
+				results = pool.submit(() -> IntStream.range(0, bounds.length - 1).parallel()
+						.mapToObj(i -> verifyRegion(channel, bounds[i], bounds[i + 1]))
+						.reduce(new Results(), Results::merge)).get();
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof UncheckedIOException) {
+					throw ((UncheckedIOException) e.getCause()).getCause();
+				}
+				throw new IllegalStateException("a region failed", e.getCause());
+			}
+			results.nanos = System.nanoTime() - start;
+			return results;
+		}
+	}
+
+	/**
+	 * Splits a file into regions of about REGION bytes,
+	 * each ending just after a line break (or at the end).
+	 *
+	 * @param channel The file
+	 * @return The region bounds, from 0 up to the file size
+	 * @throws IOException When the file can't be read
+	 */
+	private static long[] regions(FileChannel channel) throws IOException {
+		long size = channel.size();
+		List<Long> bounds = new ArrayList<>();
+		bounds.add(0L);
+		ByteBuffer scan = ByteBuffer.allocate(4096);
+		long next = REGION;
+		while (next < size) {
+			long lineEnd = -1;
+			for (long position = next; lineEnd < 0 && position < size; position += scan.limit()) {
+				scan.clear();
+				channel.read(scan, position);
+				scan.flip();
+				for (int i = 0; i < scan.limit(); i++) {
+					if (scan.get(i) == '\n') {
+						lineEnd = position + i + 1;
+						break;
+					}
+				}
+			}
+			if (lineEnd < 0 || lineEnd >= size) {
+				break;
+			}
+			bounds.add(lineEnd);
+			next = lineEnd + REGION;
+		}
+		bounds.add(size);
+		long[] result = new long[bounds.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = bounds.get(i);
+		}
+		return result;
+	}
+
+	/**
+	 * Checks the games of one region, with a controller of its own.
+	 *
+	 * The mapped region is copied into an array a window at
+	 * a time, and only whole lines are checked; the start of
+	 * a line cut off by the end of a window is moved to the
+	 * front for the next one.
+	 *
+	 * @param channel The file
+	 * @param start Where the region starts, at the start of a line
+	 * @param end Where the region ends, just after a line break
+	 * @return The region's results, with problems numbered by region line
+	 */
+	private Results verifyRegion(FileChannel channel, long start, long end) {
+		Results results = new Results();
+		MappedByteBuffer mapped;
+		try {
+			mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		// the controller only scores pairs, its own secret is never used
+		MastermindController control = new MastermindController(new MastermindModel(spec), useFeedbackTable);
+		results.bytes = end - start;
+		// one more byte for a line break after a last line without one
+		byte[] window = new byte[WINDOW + 1];
+		int kept = 0;
+		boolean skipping = false;
+		while (mapped.hasRemaining() || kept > 0) {
+			int read = Math.min(WINDOW - kept, mapped.remaining());
+			mapped.get(window, kept, read);
+			int filled = kept + read;
+			if (!mapped.hasRemaining() && window[filled - 1] != '\n') {
+				window[filled++] = '\n';
+			}
+			int lastBreak = filled - 1;
+			while (lastBreak >= 0 && window[lastBreak] != '\n') {
+				lastBreak--;
+			}
+			if (lastBreak < 0) {
+				// a line longer than a window can't be a game, so it is skipped
+				if (!skipping) {
+					results.lines++;
+					results.games++;
+					results.impossible(problem(window, 0, results, "the line is too long"));
+					skipping = true;
+				}
+				kept = 0;
+				continue;
+			}
+			int line = skipping ? skipLine(window, 0) : 0;
+			skipping = false;
+			while (line <= lastBreak) {
+				line = verifyLine(window, line, control, results);
+			}
+			kept = filled - line;
+			System.arraycopy(window, line, window, 0, kept);
+		}
+		return results;
+	}
+
+	/**
+	 * Checks one line, which is a game unless it is blank
+	 * or starts with #.
+	 *
+	 * @param bytes The window the line is in
+	 * @param start Where the line starts, with a line break somewhere after it
+	 * @param control The controller to score with
+	 * @param results Where the game is counted
+	 * @return Where the next line starts
+	 */
+	private int verifyLine(byte[] bytes, int start, MastermindController control, Results results) {
+		results.lines++;
+		byte first = bytes[start];
+		if (first == '\n' || first == '#' || (first == '\r' && bytes[start + 1] == '\n')) {
+			return skipLine(bytes, start);
+		}
+		results.games++;
+		long secret = readCode(bytes, start);
+		if (secret < 0 || (!spec.allowsDuplicates() && repeats((int) secret))) {
+			results.impossible(problem(bytes, start, results, "the secret isn't a code of " + spec));
+			return skipLine(bytes, start);
+		}
+		int position = start + pegs;
+		int guesses = 0;
+		boolean won = false;
+		boolean mismatched = false;
+		// a move is a space, the guess, a colon and two counts; colors and digits are never line breaks
+		while (bytes[position] == ' ') {
+			long guess = readCode(bytes, position + 1);
+			int black = guess < 0 || bytes[position + pegs + 1] != ':' ? -1 : bytes[position + pegs + 2] - '0';
+			int white = black < 0 || black > pegs ? -1 : bytes[position + pegs + 3] - '0';
+			if (white < 0 || white > pegs) {
+				results.impossible(problem(bytes, start, results, "move " + (guesses + 1) + " can't be read"));
+				return skipLine(bytes, start);
+			}
+			if (won) {
+				results.impossible(problem(bytes, start, results, "the game goes on after it was won"));
+				return skipLine(bytes, start);
+			}
+			guesses++;
+			int feedback = control.scoreCodes((int) secret, (int) guess);
+			if (feedback != MastermindScorer.feedback(black, white)) {
+				results.mismatches++;
+				if (!mismatched) {
+					mismatched = true;
+					results.mismatchedGames++;
+					if (results.problems.size() < MAX_PROBLEMS) {
+						results.addProblem(problem(bytes, start, results, "move " + guesses + " got " + black + " " + white
+								+ " but scores " + MastermindScorer.blacks(feedback) + " " + MastermindScorer.whites(feedback)));
+					}
+				}
+			}
+			won = feedback == solved;
+			position += pegs + 4;
+		}
+		results.guesses += guesses;
+		if (bytes[position] == '\r') {
+			position++;
+		}
+		if (bytes[position] != '\n') {
+			results.impossible(problem(bytes, start, results, "move " + (guesses + 1) + " can't be read"));
+			return skipLine(bytes, start);
+		}
+		if (guesses > MAX_GUESSES) {
+			results.impossible(problem(bytes, start, results, guesses + " guesses, more than " + MAX_GUESSES));
+		}
+		return position + 1;
+	}
+
+	/**
+	 * Reads a packed code from the bytes, as PackedScorer.encode
+	 * would. It stops at the first byte that isn't a color, so
+	 * it never reads past a line break.
+	 *
+	 * @param bytes The window the code is in
+	 * @param start Where the code starts
+	 * @return The packed code as an unsigned value, or -1 if the bytes aren't a code of the spec
+	 */
+	private long readCode(byte[] bytes, int start) {
+		int code = 0;
+		for (int i = 0; i < pegs; i++) {
+			int color = colorOf[bytes[start + i] & 0xFF];
+			if (color < 0) {
+				return -1;
+			}
+			code |= color << (i * PackedScorer.PEG_BITS);
+		}
+		return code & 0xFFFFFFFFL;
+	}
+
+	private boolean repeats(int code) {
+		int used = 0;
+		for (int i = 0; i < pegs; i++) {
+			int bit = 1 << PackedScorer.colorAt(code, i);
+			if ((used & bit) != 0) {
+				return true;
+			}
+			used |= bit;
+		}
+		return false;
+	}
+
+	private static int skipLine(byte[] bytes, int start) {
+		int position = start;
+		while (bytes[position] != '\n') {
+			position++;
+		}
+		return position + 1;
+	}
+
+	/**
+	 * Describes a problem with a game, only made for the
+	 * first few problems in a region.
+	 *
+	 * @return The problem, or null once enough have been kept
+	 */
+	private static Problem problem(byte[] bytes, int start, Results results, String message) {
+		if (results.problems.size() >= MAX_PROBLEMS) {
+			return null;
+		}
+		int end = start;
+		while (end < bytes.length && bytes[end] != '\n' && bytes[end] != '\r' && end - start < 200) {
+			end++;
+		}
+		return new Problem(results.lines, message, new String(bytes, start, end - start, StandardCharsets.ISO_8859_1));
+	}
+
+	/**
+	 * This inner class is a game that didn't check out.
+	 */
+	public static class Problem {
+		private final long line;
+		private final String message;
+		private final String game;
+
+		Problem(long line, String message, String game) {
+			this.line = line;
+			this.message = message;
+			this.game = game;
+		}
+
+		/**
+		 * Get the line of the game, starting from 1.
+		 *
+		 * @return The line number
+		 */
+		public long getLine() {
+			return line;
+		}
+
+		/**
+		 * Get what was wrong with the game.
+		 *
+		 * @return The message
+		 */
+		public String getMessage() {
+			return message;
+		}
+
+		@Override
+		public String toString() {
+			return "line " + line + ": " + message + ": " + game;
+		}
+	}
+
+	/**
+	 * This inner class adds up what was found in a file.
+	 */
+	public static class Results {
+		private final List<Problem> problems = new ArrayList<>();
+		private long bytes;
+		private long lines;
+		private long games;
+		private long guesses;
+		private long mismatches;
+		private long mismatchedGames;
+		private long impossibleGames;
+		private long nanos;
+
+		void impossible(Problem problem) {
+			impossibleGames++;
+			addProblem(problem);
+		}
+
+		void addProblem(Problem problem) {
+			if (problem != null) {
+				problems.add(problem);
+			}
+		}
+
+		/**
+		 * Adds up the results of this region and the one
+		 * right after it.
+		 */
+		Results merge(Results other) {
+			Results merged = new Results();
+			merged.problems.addAll(problems);
+			for (Problem problem : other.problems) {
+				if (merged.problems.size() < MAX_PROBLEMS) {
+					merged.problems.add(new Problem(problem.line + lines, problem.message, problem.game));
+				}
+			}
+			merged.bytes = bytes + other.bytes;
+			merged.lines = lines + other.lines;
+			merged.games = games + other.games;
+			merged.guesses = guesses + other.guesses;
+			merged.mismatches = mismatches + other.mismatches;
+			merged.mismatchedGames = mismatchedGames + other.mismatchedGames;
+			merged.impossibleGames = impossibleGames + other.impossibleGames;
+			return merged;
+		}
+
+		/**
+		 * Get the first problems found, in file order.
+		 *
+		 * @return Up to 20 problems
+		 */
+		public List<Problem> getProblems() {
+			return problems;
+		}
+
+		/**
+		 * Get how many games were checked.
+		 *
+		 * @return The number of games
+		 */
+		public long getGames() {
+			return games;
+		}
+
+		/**
+		 * Get how many guesses were scored again.
+		 *
+		 * @return The number of guesses
+		 */
+		public long getGuesses() {
+			return guesses;
+		}
+
+		/**
+		 * Get how many guesses had the wrong feedback written down.
+		 *
+		 * @return The number of mismatched guesses
+		 */
+		public long getMismatches() {
+			return mismatches;
+		}
+
+		/**
+		 * Get how many games had at least one mismatched guess.
+		 *
+		 * @return The number of mismatched games
+		 */
+		public long getMismatchedGames() {
+			return mismatchedGames;
+		}
+
+		/**
+		 * Get how many games couldn't have been played.
+		 *
+		 * @return The number of impossible games
+		 */
+		public long getImpossibleGames() {
+			return impossibleGames;
+		}
+
+		/**
+		 * Get how many bytes were checked per second.
+		 *
+		 * @return The bytes per second
+		 */
+		public double getBytesPerSecond() {
+			return nanos == 0 ? 0 : bytes / (nanos / 1e9);
+		}
+
+		/**
+		 * Checks if every game checked out.
+		 *
+		 * @return Whether no problem was found
+		 */
+		public boolean isClean() {
+			return mismatchedGames == 0 && impossibleGames == 0;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder report = new StringBuilder();
+			report.append(String.format("%d games, %d guesses, %d bytes in %.2f s (%.0f MB/s, %.0f guesses/sec)%n",
+					games, guesses, bytes, nanos / 1e9, getBytesPerSecond() / 1e6, nanos == 0 ? 0 : guesses / (nanos / 1e9)));
+			report.append(String.format("%d mismatched feedbacks in %d games, %d impossible games%n",
+					mismatches, mismatchedGames, impossibleGames));
+			for (Problem problem : problems) {
+				report.append(problem).append(System.lineSeparator());
+			}
+			return report.toString();
+		}
+	}
+
+	/**
+	 * Writes a transcript of random games, to try the verifier on.
+	 * Each game is played by a RandomConsistentSolver for at
+	 * most 10 guesses.
+	 *
+	 * @param spec The MastermindSpec of the games (at most 8 pegs)
+	 * @param games How many games to write
+	 * @param seed The seed the games come from
+	 * @param file Where to write them
+	 * @throws IOException When the file can't be written
+	 */
+	public static void generate(MastermindSpec spec, long games, long seed, Path file) throws IOException {
+		MastermindController control = new MastermindController(new MastermindModel(spec));
+		PackedScorer scorer = control.getPackedScorer();
+		int[] codes = scorer.allCodes();
+		SplittableRandom random = new SplittableRandom(seed);
+		Codebreaker breaker = new RandomConsistentSolver(control, random.split());
+		int pegs = spec.getPegs();
+		StringBuilder line = new StringBuilder();
+		try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.ISO_8859_1)) {
+			for (long game = 0; game < games; game++) {
+				int secret = codes[random.nextInt(codes.length)];
+				breaker.reset();
+				line.setLength(0);
+				line.append(scorer.decode(secret));
+				boolean solved = false;
+				for (int guesses = 0; !solved && guesses < MAX_GUESSES; guesses++) {
+					int guess = breaker.nextGuess();
+					int feedback = control.scoreCodes(secret, guess);
+					line.append(' ').append(scorer.decode(guess)).append(':')
+							.append(MastermindScorer.blacks(feedback)).append(MastermindScorer.whites(feedback));
+					solved = MastermindScorer.blacks(feedback) == pegs;
+					if (!solved) {
+						breaker.feedback(guess, feedback);
+					}
+				}
+				out.append(line).append('\n');
+			}
+		}
+	}
+
+	/**
+	 * Checks transcript files and prints what was found.
+	 *
+	 * It takes the files as its last arguments, and understands
+	 * "-threads N" (default every core), "-table" to score with
+	 * the feedback table, and the MastermindSpec.fromArgs
+	 * arguments. With "-generate FILE" it writes a transcript
+	 * of "-games N" (default 1000000) random games from
+	 * "-seed S" (default 1) instead. It exits with status 1
+	 * when any game didn't check out.
+	 *
+	 * @param args The command arguments
+	 * @throws Exception When a file can't be read or written
+	 */
+	public static void main(String[] args) throws Exception {
+		int threads = Runtime.getRuntime().availableProcessors();
+		long games = 1000000;
+		long seed = 1;
+		String generate = null;
+		List<Path> files = new ArrayList<>();
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-table") || args[i].equals("-unique")) {
+				continue;
+			} else if (args[i].startsWith("-") && i + 1 < args.length) {
+				if (args[i].equals("-threads")) {
+					threads = Integer.parseInt(args[i + 1]);
+				} else if (args[i].equals("-games")) {
+					games = Long.parseLong(args[i + 1]);
+				} else if (args[i].equals("-seed")) {
+					seed = Long.parseLong(args[i + 1]);
+				} else if (args[i].equals("-generate")) {
+					generate = args[i + 1];
+				}
+				i++;
+			} else {
+				files.add(Paths.get(args[i]));
+			}
+		}
+		MastermindSpec spec = MastermindSpec.fromArgs(args);
+		if (generate != null) {
+			generate(spec, games, seed, Paths.get(generate));
+			return;
+		}
+		TranscriptVerifier verifier = new TranscriptVerifier(spec, Arrays.asList(args).contains("-table"));
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		boolean clean = true;
+		for (Path file : files) {
+			Results results = verifier.verify(file, pool);
+			System.out.println(file + " (" + spec + ", " + threads + " threads)");
+			System.out.print(results);
+			clean &= results.isClean();
+		}
+		pool.shutdown();
+		if (!clean) {
+			System.exit(1);
+		}
+	}
+}
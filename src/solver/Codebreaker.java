@@ -0,0 +1,75 @@
+package solver;
+
+import java.util.SplittableRandom;
+
+import controller.MastermindController;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file is what a codebreaker strategy
+ * looks like to the code that plays it. A codebreaker
+ * works with packed codes and packed feedback (see
+ * PackedScorer and MastermindScorer.feedback), and is
+ * reset between games so one instance can play many.
+ *
+ */
+public interface Codebreaker {
+
+	/**
+	 * Forgets all feedback to start a new game.
+	 */
+	void reset();
+
+	/**
+	 * Picks the next guess.
+	 *
+	 * @return The packed next guess
+	 */
+	int nextGuess();
+
+	/**
+	 * Takes in the feedback the last guess got.
+	 *
+	 * @param guess The packed guess that was played
+	 * @param feedback The packed feedback it got
+	 */
+	void feedback(int guess, int feedback);
+
+	/**
+	 * Checks if the codebreaker always makes the same guess
+	 * after the same feedback, so its moves can be remembered
+	 * (see MemoizedCodebreaker).
+	 *
+	 * @return Whether the codebreaker is deterministic
+	 */
+	default boolean isDeterministic() {
+		return false;
+	}
+
+	/**
+	 * Gives back anything the codebreaker holds outside the
+	 * heap, such as an OffHeapCandidateSet. The codebreaker
+	 * can't be used afterwards.
+	 */
+	default void close() {
+	}
+
+	/**
+	 * This inner interface makes codebreakers, so the code
+	 * playing them can give each thread its own.
+	 */
+	@FunctionalInterface
+	interface Factory {
+
+		/**
+		 * Makes a codebreaker.
+		 *
+		 * @param control The MastermindController to score with (its secret must not be looked at)
+		 * @param random Where the codebreaker should take any random choices from
+		 * @return A new codebreaker, already reset
+		 */
+		Codebreaker create(MastermindController control, SplittableRandom random);
+	}
+}
@@ -0,0 +1,38 @@
+package solver;
+
+import controller.MastermindController;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file picks the guess whose feedback
+ * tells the most about the secret, meaning the partition
+ * of the candidates with the highest entropy. The entropy
+ * is log(n) minus the sum of c*log(c) over n, so the
+ * guess with the smallest sum of c*log(c) wins.
+ *
+ */
+public class EntropySolver extends HeuristicSolver {
+
+	/**
+	 * This is the constructor for the solver.
+	 *
+	 * @param control The MastermindController to score with
+	 * @param budgetNanos How long a move may take, or 0 for no limit
+	 */
+	public EntropySolver(MastermindController control, long budgetNanos) {
+		super(control, budgetNanos);
+	}
+
+	@Override
+	protected double cost(int[] counts, int total) {
+		double sum = 0;
+		for (int count : counts) {
+			if (count > 1) {
+				sum += count * Math.log(count);
+			}
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,36 @@
+package solver;
+
+import controller.MastermindController;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file picks the guess that leaves
+ * the fewest candidates on average. If the secret is
+ * any candidate with equal chance, a partition of size
+ * c comes up with chance c/n and leaves c candidates,
+ * so the expected size is the sum of c*c over n.
+ *
+ */
+public class ExpectedSizeSolver extends HeuristicSolver {
+
+	/**
+	 * This is the constructor for the solver.
+	 *
+	 * @param control The MastermindController to score with
+	 * @param budgetNanos How long a move may take, or 0 for no limit
+	 */
+	public ExpectedSizeSolver(MastermindController control, long budgetNanos) {
+		super(control, budgetNanos);
+	}
+
+	@Override
+	protected double cost(int[] counts, int total) {
+		long squares = 0;
+		for (int count : counts) {
+			squares += (long) count * count;
+		}
+		return (double) squares / total;
+	}
+}
@@ -0,0 +1,89 @@
+package solver;
+
+import controller.MastermindController;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file plays the codebreaker the
+ * simplest way that still uses the feedback: it always
+ * guesses the lowest code (in rank order) that is still
+ * consistent with every feedback so far. It is much
+ * weaker than KnuthSolver but costs next to nothing per
+ * move, which makes it a useful baseline. Specs with
+ * too many codes for the heap keep their candidates in
+ * an OffHeapCandidateSet.
+ *
+ */
+public class FirstConsistentSolver implements Codebreaker {
+	private final MastermindController control;
+	private final int[] allCodes;
+	private int[] candidates;
+	private int candidateCount;
+	// used instead of the arrays for specs with too many codes for the heap
+	private final OffHeapCandidateSet offHeap;
+
+	/**
+	 * This is the constructor for the solver.
+	 *
+	 * @param control The MastermindController to score with
+	 */
+	public FirstConsistentSolver(MastermindController control) {
+		this.control = control;
+		if (OffHeapCandidateSet.isNeeded(control.getSpec())) {
+			this.offHeap = new OffHeapCandidateSet(control);
+			this.allCodes = null;
+		} else {
+			this.offHeap = null;
+			this.allCodes = control.getPackedScorer().allCodes();
+			this.candidates = new int[allCodes.length];
+		}
+		reset();
+	}
+
+	@Override
+	public void reset() {
+		if (offHeap != null) {
+			offHeap.reset();
+			return;
+		}
+		System.arraycopy(allCodes, 0, candidates, 0, allCodes.length);
+		candidateCount = allCodes.length;
+	}
+
+	/**
+	 * Picks the lowest candidate.
+	 *
+	 * @return The packed next guess
+	 * @throws IllegalStateException When no code is consistent with the feedback
+	 */
+	@Override
+	public int nextGuess() {
+		if (offHeap != null ? offHeap.size() == 0 : candidateCount == 0) {
+			throw new IllegalStateException("no code is consistent with the feedback given");
+		}
+		return offHeap != null ? offHeap.get(0) : candidates[0];
+	}
+
+	@Override
+	public void feedback(int guess, int feedback) {
+		if (offHeap != null) {
+			offHeap.filter(guess, feedback);
+			return;
+		}
+		candidateCount = control.filter(guess, feedback, candidates, candidateCount);
+	}
+
+	@Override
+	public boolean isDeterministic() {
+		return true;
+	}
+
+	@Override
+	public void close() {
+		if (offHeap != null) {
+			offHeap.close();
+		}
+	}
+}
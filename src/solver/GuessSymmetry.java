@@ -0,0 +1,216 @@
+package solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import controller.PackedScorer;
+import model.MastermindSpec;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file finds which guesses are worth
+ * trying given the guesses played so far. A swap of pegs
+ * together with a swap of colors that leaves every guess
+ * played the same also leaves the candidates the same, so
+ * two guesses it turns into each other split the candidates
+ * the same way and only one of them needs to be tried.
+ * Colors no guess has used can always be swapped with each
+ * other. A guess is canonical when no such swap turns it
+ * into a lower code, so the lowest code of each class is
+ * the one tried, which keeps the solvers' preference for
+ * lower codes on ties. The classic game's opening has just
+ * 5 canonical guesses out of 1296.
+ *
+ * isCanonical allocates nothing and can be called from many
+ * threads at once, but played and reset must not run at the
+ * same time as it.
+ *
+ */
+public final class GuessSymmetry {
+	// every order of the pegs, for each number of pegs, made when first needed
+	private static final int[][][] PEG_ORDERS = new int[PackedScorer.MAX_PEGS + 1][][];
+
+	private final int pegs;
+	private final int colors;
+	private final int[][] orders;
+	// each symmetry is the peg order, then the color each color goes to, then the
+	// color each color comes from (-1 for colors no guess has used); with no
+	// guesses played they are just the shared peg orders, since no color is used
+	private int[][] symmetries;
+	private int used;
+
+	/**
+	 * This is the constructor for a game with no guesses played.
+	 *
+	 * @param spec The MastermindSpec of the game (at most 8 pegs)
+	 */
+	public GuessSymmetry(MastermindSpec spec) {
+		this.pegs = spec.getPegs();
+		this.colors = spec.getColors();
+		this.orders = pegOrders(pegs);
+		reset();
+	}
+
+	/**
+	 * Makes the symmetries of a game where some guesses were played.
+	 *
+	 * @param spec The MastermindSpec of the game (at most 8 pegs)
+	 * @param history The packed guesses played
+	 * @return The symmetries
+	 */
+	public static GuessSymmetry of(MastermindSpec spec, int[] history) {
+		GuessSymmetry symmetry = new GuessSymmetry(spec);
+		for (int guess : history) {
+			symmetry.played(guess);
+		}
+		return symmetry;
+	}
+
+	/**
+	 * Forgets every guess played, to start a new game.
+	 */
+	public void reset() {
+		symmetries = orders;
+		used = 0;
+	}
+
+	/**
+	 * Keeps only the symmetries that leave a guess played the same.
+	 *
+	 * @param guess The packed guess that was played
+	 */
+	public void played(int guess) {
+		List<int[]> kept = new ArrayList<>();
+		for (int[] symmetry : symmetries) {
+			int[] next = Arrays.copyOf(symmetry, pegs + 2 * colors);
+			if (symmetry.length == pegs) {
+				Arrays.fill(next, pegs, next.length, -1);
+			}
+			if (fixes(next, guess)) {
+				kept.add(next);
+			}
+		}
+		symmetries = kept.toArray(new int[0][]);
+		for (int i = 0; i < pegs; i++) {
+			used |= 1 << PackedScorer.colorAt(guess, i);
+		}
+	}
+
+	/**
+	 * Extends a symmetry's colors to a guess, if they can
+	 * be, so that it turns the guess into itself.
+	 *
+	 * @return Whether the symmetry leaves the guess the same
+	 */
+	private boolean fixes(int[] symmetry, int guess) {
+		for (int i = 0; i < pegs; i++) {
+			int from = PackedScorer.colorAt(guess, symmetry[i]);
+			int to = PackedScorer.colorAt(guess, i);
+			if (symmetry[pegs + from] < 0 && symmetry[pegs + colors + to] < 0) {
+				symmetry[pegs + from] = to;
+				symmetry[pegs + colors + to] = from;
+			} else if (symmetry[pegs + from] != to) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks if a guess is the lowest code of its class,
+	 * so that it is worth trying.
+	 *
+	 * @param guess A packed guess
+	 * @return Whether no symmetry turns the guess into a lower code
+	 */
+	public boolean isCanonical(int guess) {
+		for (int[] symmetry : symmetries) {
+			if (lowers(symmetry, guess)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks if the lowest code a symmetry can turn a guess
+	 * into is lower than the guess. The pegs are compared from
+	 * the highest, and colors no guess has used go to the lowest
+	 * such colors in the order they come up.
+	 */
+	private boolean lowers(int[] symmetry, int guess) {
+		// the unused colors renamed so far, and what to (4 bits each)
+		int renamed = 0;
+		long rename = 0;
+		int free = 0;
+		for (int i = pegs - 1; i >= 0; i--) {
+			int color = PackedScorer.colorAt(guess, symmetry[i]);
+			int to;
+			if ((used & (1 << color)) != 0) {
+				to = symmetry[pegs + color];
+			} else if ((renamed & (1 << color)) != 0) {
+				to = (int) (rename >>> (color * PackedScorer.PEG_BITS)) & 0xF;
+			} else {
+				while ((used & (1 << free)) != 0) {
+					free++;
+				}
+				to = free++;
+				renamed |= 1 << color;
+				rename |= (long) to << (color * PackedScorer.PEG_BITS);
+			}
+			int own = PackedScorer.colorAt(guess, i);
+			if (to != own) {
+				return to < own;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks if every guess is canonical, meaning only the
+	 * identity is left and at most one color is unused, so
+	 * callers can skip isCanonical altogether.
+	 *
+	 * @return Whether there is nothing to reduce
+	 */
+	public boolean isTrivial() {
+		return symmetries.length == 1 && colors - Integer.bitCount(used) <= 1;
+	}
+
+	/**
+	 * Get how many swaps of pegs still leave every guess played the same.
+	 *
+	 * @return The number of peg orders, at least 1
+	 */
+	public int size() {
+		return symmetries.length;
+	}
+
+	/**
+	 * Lists every order of a number of pegs, the identity first.
+	 */
+	private static synchronized int[][] pegOrders(int pegs) {
+		if (PEG_ORDERS[pegs] == null) {
+			List<int[]> orders = new ArrayList<>();
+			permutations(new int[pegs], 0, 0, orders);
+			PEG_ORDERS[pegs] = orders.toArray(new int[0][]);
+		}
+		return PEG_ORDERS[pegs];
+	}
+
+	private static void permutations(int[] order, int index, int taken, List<int[]> orders) {
+		if (index == order.length) {
+			orders.add(order.clone());
+			return;
+		}
+		for (int p = 0; p < order.length; p++) {
+			if ((taken & (1 << p)) == 0) {
+				order[index] = p;
+				permutations(order, index + 1, taken | (1 << p), orders);
+			}
+		}
+	}
+}
@@ -0,0 +1,214 @@
+package solver;
+
+import java.util.Arrays;
+
+import controller.MastermindController;
+import controller.MastermindScorer;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file is the base of the codebreakers
+ * that pick a guess by how it would split the candidates
+ * (the codes still consistent with every feedback so far).
+ * For each guess it tries, it counts how many candidates
+ * would give each feedback, and a subclass turns those
+ * counts into a cost; the guess with the lowest cost wins,
+ * preferring candidates and then lower codes on ties.
+ * Candidates are tried first and then every code that
+ * isn't one, skipping guesses that some symmetry of the
+ * game so far turns into a lower code (see GuessSymmetry),
+ * since they would split the candidates the same way.
+ * A move can be given a time budget: the clock is read
+ * after every guess tried, and once it runs out (or the
+ * thread is interrupted) the best guess tried so far is
+ * played.
+ *
+ */
+public abstract class HeuristicSolver implements Codebreaker {
+	private final MastermindController control;
+	private final long budgetNanos;
+	private final int[] allCodes;
+	private final int solved;
+	private final int[] counts;
+	private final int[] candidates;
+	private int candidateCount;
+	private final GuessSymmetry symmetry;
+	private int opening;
+	private boolean openingKnown;
+	private long lastNodes;
+	private boolean lastComplete;
+
+	/**
+	 * This is the constructor for a solver.
+	 *
+	 * @param control The MastermindController to score with
+	 * @param budgetNanos How long a move may take, or 0 for no limit
+	 */
+	protected HeuristicSolver(MastermindController control, long budgetNanos) {
+		this.control = control;
+		this.budgetNanos = budgetNanos;
+		this.allCodes = control.getPackedScorer().allCodes();
+		this.solved = MastermindScorer.feedback(control.getSpec().getPegs(), 0);
+		this.counts = new int[solved + 1];
+		this.candidates = new int[allCodes.length];
+		this.symmetry = new GuessSymmetry(control.getSpec());
+		reset();
+	}
+
+	/**
+	 * Works out how good a guess is from how it splits the candidates.
+	 *
+	 * @param counts How many candidates give each packed feedback
+	 * @param total How many candidates there are
+	 * @return The cost of the guess, lower is better
+	 */
+	protected abstract double cost(int[] counts, int total);
+
+	@Override
+	public void reset() {
+		System.arraycopy(allCodes, 0, candidates, 0, allCodes.length);
+		candidateCount = allCodes.length;
+		symmetry.reset();
+	}
+
+	/**
+	 * Picks the next guess.
+	 *
+	 * With one or two candidates left, the first one is
+	 * guessed right away. The opening guess is only worked
+	 * out once per solver, unless the budget cut it short.
+	 *
+	 * @return The packed next guess
+	 * @throws IllegalStateException When no code is consistent with the feedback
+	 */
+	@Override
+	public int nextGuess() {
+		if (candidateCount == 0) {
+			throw new IllegalStateException("no code is consistent with the feedback given");
+		}
+		lastNodes = 0;
+		lastComplete = true;
+		if (candidateCount <= 2) {
+			return candidates[0];
+		}
+		boolean first = candidateCount == allCodes.length;
+		if (first && openingKnown) {
+			return opening;
+		}
+		long deadline = budgetNanos > 0 ? System.nanoTime() + budgetNanos : 0;
+		boolean reduce = !symmetry.isTrivial();
+		Best best = new Best();
+		boolean finished = true;
+		for (int pass = 0; pass < 2 && finished; pass++) {
+			int[] guesses = pass == 0 ? candidates : allCodes;
+			int count = pass == 0 ? candidateCount : allCodes.length;
+			// the candidates are in the same order as allCodes, so the second
+			// pass skips the ones the first pass tried by walking them alongside
+			int tried = 0;
+			for (int i = 0; i < count; i++) {
+				// a guess costs a pass over the candidates, far more than reading the clock
+				if (best.cost < Double.POSITIVE_INFINITY && ((deadline != 0 && System.nanoTime() - deadline > 0)
+						|| Thread.currentThread().isInterrupted())) {
+					finished = false;
+					break;
+				}
+				int guess = guesses[i];
+				if (pass == 1 && tried < candidateCount && candidates[tried] == guess) {
+					tried++;
+					continue;
+				}
+				// the lowest code of each class of equivalent guesses stands for it
+				if (reduce && !symmetry.isCanonical(guess)) {
+					continue;
+				}
+				Arrays.fill(counts, 0);
+				control.countPartitions(guess, candidates, candidateCount, counts);
+				lastNodes += candidateCount;
+				best.offer(guess, cost(counts, candidateCount), counts[solved] > 0);
+			}
+		}
+		lastComplete = finished;
+		if (first && finished) {
+			opening = best.guess;
+			openingKnown = true;
+		}
+		return best.guess;
+	}
+
+	@Override
+	public void feedback(int guess, int feedback) {
+		candidateCount = control.filter(guess, feedback, candidates, candidateCount);
+		symmetry.played(guess);
+	}
+
+	/**
+	 * Without a time budget a solver always makes the same moves.
+	 *
+	 * @return Whether the solver has no time budget
+	 */
+	@Override
+	public boolean isDeterministic() {
+		return budgetNanos <= 0;
+	}
+
+	/**
+	 * Get how many codes are still consistent with the feedback.
+	 *
+	 * @return The number of candidates
+	 */
+	public int getCandidateCount() {
+		return candidateCount;
+	}
+
+	/**
+	 * Get one of the codes still consistent with the feedback.
+	 *
+	 * @param index From 0 up to getCandidateCount()
+	 * @return The packed candidate
+	 */
+	public int getCandidate(int index) {
+		return candidates[index];
+	}
+
+	/**
+	 * Checks if the last call to nextGuess tried every
+	 * guess, rather than being cut short by its budget
+	 * or an interrupt.
+	 *
+	 * @return Whether the last move was searched in full
+	 */
+	public boolean isLastComplete() {
+		return lastComplete;
+	}
+
+	/**
+	 * Get how many guess/candidate pairs the last call to nextGuess scored.
+	 *
+	 * @return The nodes evaluated by the last move
+	 */
+	public long getLastNodes() {
+		return lastNodes;
+	}
+
+	/**
+	 * This inner class keeps the best guess tried so far.
+	 */
+	private static class Best {
+		int guess;
+		double cost = Double.POSITIVE_INFINITY;
+		boolean candidate;
+
+		void offer(int guess, double cost, boolean candidate) {
+			boolean better = cost < this.cost
+					|| (cost == this.cost && candidate && !this.candidate)
+					|| (cost == this.cost && candidate == this.candidate && Integer.compareUnsigned(guess, this.guess) < 0);
+			if (better) {
+				this.guess = guess;
+				this.cost = cost;
+				this.candidate = candidate;
+			}
+		}
+	}
+}
@@ -0,0 +1,240 @@
+package solver;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import controller.MastermindController;
+import controller.MastermindScorer;
+import controller.PackedScorer;
+import model.MastermindModel;
+import model.MastermindSpec;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file works out hints for a player:
+ * a good next guess and how many secrets are still
+ * possible. The work runs on a thread of its own, so a
+ * view's event handler only asks for a hint and gets a
+ * CompletableFuture back. A hint never takes longer than
+ * the service's budget. The guess is picked by a
+ * MostPartsSolver given most of the budget, and when even
+ * that is too slow, a timer answers with the first code
+ * still consistent with the feedback, which is kept ready
+ * after every guess. Until that code is ready, the timer
+ * answers with the one from before the guess, so it always
+ * has something to give. Playing a guess cancels any hint
+ * still being worked out, since it would be out of date.
+ * A service follows one game at a time, and is reset
+ * between games.
+ *
+ */
+public class HintService implements AutoCloseable {
+	// how long the views let a hint take
+	public static final long DEFAULT_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+	// the largest code space a hint is worked out for
+	private static final long MAX_CODES = 1 << 20;
+
+	private final long budgetNanos;
+	private final PackedScorer scorer;
+	private final MostPartsSolver solver;
+	private final ExecutorService worker;
+	private final ScheduledExecutorService timer;
+	// the cheap hint for a new game
+	private final Hint first;
+	// the cheap hint for the current position, or the one before while a feedback is being taken in
+	private volatile Hint quick;
+	private CompletableFuture<Hint> pending;
+
+	/**
+	 * This is the constructor for the service.
+	 *
+	 * @param spec The MastermindSpec of the game
+	 * @param budgetNanos The most time a hint may take
+	 * @throws IllegalStateException When the spec is too large for hints
+	 */
+	public HintService(MastermindSpec spec, long budgetNanos) {
+		if (!supports(spec)) {
+			throw new IllegalStateException(spec + " has too many codes for hints");
+		}
+		this.budgetNanos = budgetNanos;
+		// the controller only scores pairs, its own secret is never used
+		MastermindController control = new MastermindController(new MastermindModel(spec));
+		this.scorer = control.getPackedScorer();
+		// the rest of the budget covers handing the work over and back
+		this.solver = new MostPartsSolver(control, budgetNanos * 3 / 4);
+		this.worker = Executors.newSingleThreadExecutor(task -> daemon(task, "mastermind-hint"));
+		this.timer = Executors.newSingleThreadScheduledExecutor(task -> daemon(task, "mastermind-hint-timer"));
+		this.first = quickHint();
+		this.quick = first;
+	}
+
+	/**
+	 * Checks if a spec is small enough for hints.
+	 *
+	 * @param spec A MastermindSpec
+	 * @return Whether a HintService can be made for the spec
+	 */
+	public static boolean supports(MastermindSpec spec) {
+		return spec.getPegs() <= PackedScorer.MAX_PEGS && spec.codeCount() <= MAX_CODES;
+	}
+
+	/**
+	 * Asks for a hint about the current position.
+	 *
+	 * The future completes within the budget, on the hint
+	 * thread or the timer thread, so a view has to hand the
+	 * result over to its own thread. Cancelling the future
+	 * stops the work on it. Asking again cancels the hint
+	 * asked for before, if it has not come yet.
+	 *
+	 * @return The hint to come
+	 */
+	public synchronized CompletableFuture<Hint> request() {
+		cancel();
+		CompletableFuture<Hint> hint = new CompletableFuture<>();
+		Future<?> task = worker.submit(() -> {
+			if (!hint.isDone()) {
+				int guess = solver.nextGuess();
+				hint.complete(new Hint(scorer.decode(guess), solver.getCandidateCount(), !solver.isLastComplete()));
+			}
+		});
+		ScheduledFuture<?> fallback = timer.schedule(() -> hint.complete(quick), budgetNanos, TimeUnit.NANOSECONDS);
+		// whichever way the hint ends, the other side has nothing left to do
+		hint.whenComplete((result, error) -> {
+			fallback.cancel(false);
+			task.cancel(true);
+		});
+		pending = hint;
+		return hint;
+	}
+
+	/**
+	 * Takes in the feedback a guess got in the game.
+	 *
+	 * Any hint still being worked out is cancelled first.
+	 *
+	 * @param guess The guess that was played, already validated
+	 * @param rightPlace The right color right place count it got
+	 * @param wrongPlace The right color wrong place count it got
+	 */
+	public synchronized void played(String guess, int rightPlace, int wrongPlace) {
+		cancel();
+		int code = scorer.encode(guess);
+		int feedback = MastermindScorer.feedback(rightPlace, wrongPlace);
+		// the last position's hint still answers until the new one is ready
+		quick = new Hint(quick.guess, quick.remaining, true);
+		worker.execute(() -> {
+			solver.feedback(code, feedback);
+			quick = quickHint();
+		});
+	}
+
+	/**
+	 * Starts over for a new game of the same spec, keeping
+	 * the threads and the solver. Any hint still being
+	 * worked out is cancelled first.
+	 */
+	public synchronized void reset() {
+		cancel();
+		// every new game starts with the same cheap hint
+		quick = first;
+		worker.execute(() -> {
+			solver.reset();
+			quick = quickHint();
+		});
+	}
+
+	/**
+	 * Cancels the hint asked for last, if it has not come yet.
+	 */
+	public synchronized void cancel() {
+		if (pending != null) {
+			pending.cancel(true);
+			pending = null;
+		}
+	}
+
+	/**
+	 * Stops the service's threads.
+	 */
+	@Override
+	public void close() {
+		cancel();
+		worker.shutdownNow();
+		timer.shutdownNow();
+	}
+
+	/**
+	 * Makes the cheap hint for the solver's position,
+	 * on the hint thread.
+	 *
+	 * @return The first candidate as a hint
+	 */
+	private Hint quickHint() {
+		int count = solver.getCandidateCount();
+		String guess = count == 0 ? null : scorer.decode(solver.getCandidate(0));
+		return new Hint(guess, count, true);
+	}
+
+	private static Thread daemon(Runnable task, String name) {
+		Thread thread = new Thread(task, name);
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	/**
+	 * This inner class is a hint: a guess to try and how
+	 * many secrets are still possible.
+	 */
+	public static class Hint {
+		private final String guess;
+		private final int remaining;
+		private final boolean degraded;
+
+		Hint(String guess, int remaining, boolean degraded) {
+			this.guess = guess;
+			this.remaining = remaining;
+			this.degraded = degraded;
+		}
+
+		/**
+		 * Get the guess to try.
+		 *
+		 * @return The guess, or null when no secret fits the feedback
+		 */
+		public String getGuess() {
+			return guess;
+		}
+
+		/**
+		 * Get how many secrets are still possible.
+		 *
+		 * @return The number of candidates
+		 */
+		public int getRemaining() {
+			return remaining;
+		}
+
+		/**
+		 * Checks if the guess came from a cut-short search
+		 * or the cheap fallback, rather than a full search.
+		 *
+		 * @return Whether the hint is degraded
+		 */
+		public boolean isDegraded() {
+			return degraded;
+		}
+
+		@Override
+		public String toString() {
+			return guess + " (" + remaining + " left)";
+		}
+	}
+}
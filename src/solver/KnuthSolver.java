@@ -0,0 +1,297 @@
+package solver;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import controller.MastermindController;
+import controller.MastermindScorer;
+import controller.PackedScorer;
+import model.MastermindModel;
+import model.MastermindSpec;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file plays the codebreaker with
+ * Knuth's minimax strategy. It keeps the candidates
+ * (the codes still consistent with every feedback so
+ * far) and picks the guess whose worst feedback leaves
+ * the fewest candidates, preferring candidates and then
+ * lower codes on ties. Every possible guess is scored
+ * against every candidate, split across cores with
+ * fork-join. All scoring goes through the controller,
+ * so a controller made with the feedback table makes
+ * the solver use it too. The classic game is always
+ * solved in at most 5 guesses.
+ *
+ */
+public class KnuthSolver implements Codebreaker {
+	// below this many guesses a task stops splitting and evaluates them itself
+	private static final int SPLIT_THRESHOLD = 64;
+
+	private final MastermindController control;
+	private final int[] allCodes;
+	private final int partitions;
+	private final int solved;
+	private final ForkJoinPool pool;
+	private int[] candidates;
+	private int candidateCount;
+	private final GuessSymmetry symmetry;
+	// the indexes in allCodes of the guesses worth trying this move
+	private final int[] guesses;
+	private int guessCount;
+	private int opening = -1;
+	private long lastNodes;
+	private long lastNanos;
+
+	/**
+	 * This is the constructor for the solver.
+	 *
+	 * It takes in the controller whose scoring it
+	 * uses (it never looks at the controller's secret)
+	 * and starts with every code as a candidate.
+	 *
+	 * @param control The MastermindController to score with
+	 */
+	public KnuthSolver(MastermindController control) {
+		this(control, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * This constructor runs the guess evaluation on the given pool.
+	 *
+	 * @param control The MastermindController to score with
+	 * @param pool The ForkJoinPool to evaluate guesses on
+	 */
+	public KnuthSolver(MastermindController control, ForkJoinPool pool) {
+		this.control = control;
+		this.pool = pool;
+		this.allCodes = control.getPackedScorer().allCodes();
+		this.solved = MastermindScorer.feedback(control.getSpec().getPegs(), 0);
+		this.partitions = solved + 1;
+		this.symmetry = new GuessSymmetry(control.getSpec());
+		this.guesses = new int[allCodes.length];
+		reset();
+	}
+
+	/**
+	 * Forgets all feedback so that every code is a candidate again.
+	 */
+	@Override
+	public void reset() {
+		candidates = allCodes.clone();
+		candidateCount = candidates.length;
+		symmetry.reset();
+	}
+
+	/**
+	 * Picks the next guess.
+	 *
+	 * With one or two candidates left, the first one is
+	 * guessed right away. Otherwise every code is tried
+	 * as a guess, except those a symmetry of the game so
+	 * far turns into a lower code (see GuessSymmetry), and
+	 * the one whose largest partition of the candidates is
+	 * the smallest wins. The opening
+	 * guess is only worked out once per solver.
+	 *
+	 * @return The packed next guess
+	 * @throws IllegalStateException When no code is consistent with the feedback
+	 */
+	@Override
+	public int nextGuess() {
+		long start = System.nanoTime();
+		if (candidateCount == 0) {
+			throw new IllegalStateException("no code is consistent with the feedback given");
+		}
+		int guess;
+		if (candidateCount <= 2) {
+			guess = candidates[0];
+			lastNodes = 0;
+		} else if (candidateCount == allCodes.length && opening >= 0) {
+			guess = opening;
+			lastNodes = 0;
+		} else {
+			// the lowest code of each class of equivalent guesses stands for it
+			guessCount = 0;
+			boolean reduce = !symmetry.isTrivial();
+			for (int g = 0; g < allCodes.length; g++) {
+				if (!reduce || symmetry.isCanonical(allCodes[g])) {
+					guesses[guessCount++] = g;
+				}
+			}
+			long best = pool.invoke(new MinimaxTask(0, guessCount));
+			guess = allCodes[(int) best];
+			lastNodes = (long) guessCount * candidateCount;
+			if (candidateCount == allCodes.length) {
+				opening = guess;
+			}
+		}
+		lastNanos = System.nanoTime() - start;
+		return guess;
+	}
+
+	/**
+	 * Takes in the feedback for a guess and drops every
+	 * candidate that would have given different feedback.
+	 *
+	 * @param guess The packed guess that was played
+	 * @param feedback The packed feedback it got
+	 */
+	@Override
+	public void feedback(int guess, int feedback) {
+		candidateCount = control.filter(guess, feedback, candidates, candidateCount);
+		symmetry.played(guess);
+	}
+
+	@Override
+	public boolean isDeterministic() {
+		return true;
+	}
+
+	/**
+	 * Get how many codes are still consistent with the feedback.
+	 *
+	 * @return The number of candidates
+	 */
+	public int getCandidateCount() {
+		return candidateCount;
+	}
+
+	/**
+	 * Get the codes still consistent with the feedback.
+	 *
+	 * @return A copy of the packed candidates
+	 */
+	public int[] getCandidates() {
+		return Arrays.copyOf(candidates, candidateCount);
+	}
+
+	/**
+	 * Get how many guess/candidate pairs the last call to nextGuess scored.
+	 *
+	 * @return The nodes evaluated by the last move
+	 */
+	public long getLastNodes() {
+		return lastNodes;
+	}
+
+	/**
+	 * Get how long the last call to nextGuess took.
+	 *
+	 * @return The time of the last move in nanoseconds
+	 */
+	public long getLastNanos() {
+		return lastNanos;
+	}
+
+	/**
+	 * Ranks the result of evaluating a guess so that a
+	 * smaller value is a better guess: a smaller worst
+	 * case first, then being a candidate, then a lower
+	 * index. The guess's index is in the low 32 bits.
+	 *
+	 * @param worst The size of the guess's largest partition
+	 * @param candidate Whether the guess is still a candidate
+	 * @param index The guess's index in allCodes
+	 * @return The packed rank
+	 */
+	private static long rank(int worst, boolean candidate, int index) {
+		return ((long) worst << 33) | ((candidate ? 0L : 1L) << 32) | index;
+	}
+
+	/**
+	 * This inner class evaluates a range of guesses,
+	 * splitting it in half until it is small enough,
+	 * and returns the rank of the best one.
+	 */
+	private class MinimaxTask extends RecursiveTask<Long> {
+		private static final long serialVersionUID = 1L;
+		private final int from;
+		private final int to;
+
+		MinimaxTask(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Long compute() {
+			if (to - from > SPLIT_THRESHOLD) {
+				int mid = (from + to) >>> 1;
+				MinimaxTask left = new MinimaxTask(from, mid);
+				left.fork();
+				long right = new MinimaxTask(mid, to).compute();
+				return Math.min(left.join(), right);
+			}
+			int[] counts = new int[partitions];
+			long best = Long.MAX_VALUE;
+			for (int i = from; i < to; i++) {
+				int g = guesses[i];
+				Arrays.fill(counts, 0);
+				int worst = control.countPartitions(allCodes[g], candidates, candidateCount, counts);
+				// only the guess itself scores as all right color right place
+				boolean candidate = counts[solved] > 0;
+				best = Math.min(best, rank(worst, candidate, g));
+			}
+			return best;
+		}
+	}
+
+	/**
+	 * Plays every secret of a spec (the classic game by
+	 * default) and prints how many guesses it took.
+	 *
+	 * It understands the MastermindSpec.fromArgs arguments,
+	 * "-table" to score with the feedback table, and
+	 * "-stats" to print the nodes evaluated and the time
+	 * for every move.
+	 *
+	 * @param args The command arguments
+	 */
+	public static void main(String[] args) {
+		MastermindSpec spec = MastermindSpec.fromArgs(args);
+		boolean stats = Arrays.asList(args).contains("-stats");
+		boolean table = Arrays.asList(args).contains("-table");
+		PackedScorer scorer = PackedScorer.forSpec(spec);
+		int solved = spec.getPegs();
+
+		int[] secrets = scorer.allCodes();
+		int worstGame = 0;
+		long totalGuesses = 0;
+		long totalNanos = 0;
+		KnuthSolver solver = null;
+		for (int secret : secrets) {
+			MastermindController control = new MastermindController(
+					new MastermindModel(spec, scorer.decode(secret)), table);
+			if (solver == null) {
+				solver = new KnuthSolver(control);
+			}
+			solver.reset(); // the solver only scores pairs, so one solver serves every secret
+			int guesses = 0;
+			while (true) {
+				int guess = solver.nextGuess();
+				int feedback = control.scoreCode(guess);
+				guesses++;
+				totalNanos += solver.getLastNanos();
+				if (stats) {
+					System.out.printf("%s move %d: %s -> %d/%d, %d candidates, %d nodes, %.3f ms%n",
+							scorer.decode(secret), guesses, scorer.decode(guess),
+							MastermindScorer.blacks(feedback), MastermindScorer.whites(feedback),
+							solver.getCandidateCount(), solver.getLastNodes(), solver.getLastNanos() / 1e6);
+				}
+				if (MastermindScorer.blacks(feedback) == solved) {
+					break;
+				}
+				solver.feedback(guess, feedback);
+			}
+			worstGame = Math.max(worstGame, guesses);
+			totalGuesses += guesses;
+		}
+		System.out.printf("%s: %d secrets, worst %d guesses, average %.4f guesses, %.3f ms per move%n",
+				spec, secrets.length, worstGame, (double) totalGuesses / secrets.length,
+				totalNanos / 1e6 / totalGuesses);
+	}
+}
@@ -0,0 +1,133 @@
+package solver;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import controller.MastermindScorer;
+import model.MastermindSpec;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file remembers the moves of a
+ * deterministic codebreaker. Such a codebreaker's next
+ * guess only depends on the feedback it got so far, so
+ * its moves form a tree with one branch per feedback.
+ * The tree is shared by every MemoizedCodebreaker made
+ * with the same Moves, across threads, so each position
+ * is worked out once no matter how many games reach it.
+ * The wrapped codebreaker is only told about the game
+ * when the tree doesn't know the next guess yet.
+ *
+ */
+public final class MemoizedCodebreaker implements Codebreaker {
+
+	/**
+	 * This inner class is a tree of moves that
+	 * MemoizedCodebreakers can share.
+	 */
+	public static final class Moves {
+		private final int partitions;
+		private final Node root;
+
+		/**
+		 * This is the constructor for an empty tree.
+		 *
+		 * @param spec The MastermindSpec of the games
+		 */
+		public Moves(MastermindSpec spec) {
+			this.partitions = MastermindScorer.feedback(spec.getPegs(), 0) + 1;
+			this.root = new Node(partitions);
+		}
+	}
+
+	/**
+	 * This inner class is one position of the tree.
+	 */
+	private static final class Node {
+		// any int can be a packed code, even a negative one, so the guess is
+		// only read once known says it was set (known is written after it)
+		int guess;
+		volatile boolean known;
+		final AtomicReferenceArray<Node> children;
+
+		Node(int partitions) {
+			children = new AtomicReferenceArray<>(partitions);
+		}
+	}
+
+	private final Codebreaker codebreaker;
+	private final Moves moves;
+	private Node node;
+	// the guesses and feedback of the game so far, in turn
+	private int[] history = new int[16];
+	private int played;
+	// whether the codebreaker has been told about every move so far
+	private boolean synced;
+
+	/**
+	 * This is the constructor for the wrapper.
+	 *
+	 * @param codebreaker A deterministic codebreaker
+	 * @param moves The tree of moves to share
+	 */
+	public MemoizedCodebreaker(Codebreaker codebreaker, Moves moves) {
+		this.codebreaker = codebreaker;
+		this.moves = moves;
+		reset();
+	}
+
+	@Override
+	public void reset() {
+		node = moves.root;
+		played = 0;
+		synced = false;
+	}
+
+	@Override
+	public int nextGuess() {
+		if (node.known) {
+			return node.guess;
+		}
+		if (!synced) {
+			codebreaker.reset();
+			for (int i = 0; i < played; i += 2) {
+				codebreaker.feedback(history[i], history[i + 1]);
+			}
+			synced = true;
+		}
+		int guess = codebreaker.nextGuess();
+		node.guess = guess;
+		node.known = true;
+		return guess;
+	}
+
+	@Override
+	public void feedback(int guess, int feedback) {
+		if (played == history.length) {
+			history = Arrays.copyOf(history, played * 2);
+		}
+		history[played++] = guess;
+		history[played++] = feedback;
+		if (synced) {
+			codebreaker.feedback(guess, feedback);
+		}
+		Node child = node.children.get(feedback);
+		if (child == null) {
+			node.children.compareAndSet(feedback, null, new Node(moves.partitions));
+			child = node.children.get(feedback);
+		}
+		node = child;
+	}
+
+	@Override
+	public boolean isDeterministic() {
+		return true;
+	}
+
+	@Override
+	public void close() {
+		codebreaker.close();
+	}
+}
@@ -0,0 +1,37 @@
+package solver;
+
+import controller.MastermindController;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file picks the guess whose largest
+ * partition of the candidates is the smallest, so the
+ * worst feedback leaves as few codes as possible. This
+ * is Knuth's rule; KnuthSolver plays the same moves on
+ * every core at once, while this one plays them on one
+ * thread and can stop early on a time budget.
+ *
+ */
+public class MinimaxSolver extends HeuristicSolver {
+
+	/**
+	 * This is the constructor for the solver.
+	 *
+	 * @param control The MastermindController to score with
+	 * @param budgetNanos How long a move may take, or 0 for no limit
+	 */
+	public MinimaxSolver(MastermindController control, long budgetNanos) {
+		super(control, budgetNanos);
+	}
+
+	@Override
+	protected double cost(int[] counts, int total) {
+		int largest = 0;
+		for (int count : counts) {
+			largest = Math.max(largest, count);
+		}
+		return largest;
+	}
+}
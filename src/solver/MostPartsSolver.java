@@ -0,0 +1,36 @@
+package solver;
+
+import controller.MastermindController;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file picks the guess that splits
+ * the candidates into the most partitions, meaning the
+ * guess with the most different feedbacks it could get.
+ *
+ */
+public class MostPartsSolver extends HeuristicSolver {
+
+	/**
+	 * This is the constructor for the solver.
+	 *
+	 * @param control The MastermindController to score with
+	 * @param budgetNanos How long a move may take, or 0 for no limit
+	 */
+	public MostPartsSolver(MastermindController control, long budgetNanos) {
+		super(control, budgetNanos);
+	}
+
+	@Override
+	protected double cost(int[] counts, int total) {
+		int parts = 0;
+		for (int count : counts) {
+			if (count > 0) {
+				parts++;
+			}
+		}
+		return -parts;
+	}
+}
@@ -0,0 +1,398 @@
+package solver;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+import controller.MastermindController;
+import controller.MastermindScorer;
+import controller.PackedScorer;
+import model.MastermindSpec;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file holds the packed codes still
+ * consistent with the feedback for specs too big to keep
+ * on the heap, such as 8 pegs and 10 colors with 100
+ * million codes (400 MB). The codes live in direct
+ * buffers of CHUNK codes each, outside the Java heap, so
+ * the heap stays the same size however big the code space
+ * is and the garbage collector never has to look at them.
+ * Filtering runs one task per chunk on a ForkJoinPool,
+ * each copying its chunk through a small window on the heap
+ * and scoring it with MastermindController.filter, and then
+ * the codes kept are moved down to the front in place, so
+ * the set only ever takes the buffers it started with.
+ * Direct memory is only given back when the garbage
+ * collector gets around to it, so close() hands the
+ * buffers on to the next set made for as many codes
+ * instead, and a process never holds more buffers than it
+ * had sets open at once.
+ *
+ */
+public class OffHeapCandidateSet {
+	/** How many codes each direct buffer holds, as a power of two. */
+	public static final int CHUNK_BITS = 18;
+	private static final int CHUNK = 1 << CHUNK_BITS;
+	private static final int CHUNK_MASK = CHUNK - 1;
+	// how many codes are copied onto the heap at once
+	private static final int WINDOW = 1 << 12;
+	/** The most codes the solvers keep in arrays on the heap. */
+	public static final long HEAP_LIMIT = 1 << 24;
+	private static final ThreadLocal<int[]> WINDOWS = ThreadLocal.withInitial(() -> new int[WINDOW]);
+	// the buffers of closed sets, by how many codes they hold
+	private static final Map<Long, Queue<IntBuffer[]>> FREE = new ConcurrentHashMap<>();
+
+	private final MastermindController control;
+	private final MastermindSpec spec;
+	private final ForkJoinPool pool;
+	private IntBuffer[] chunks;
+	private final long codeCount;
+	private final int feedbackCount;
+	private long size;
+
+	/**
+	 * This is the constructor for the set.
+	 *
+	 * It takes room for every code of the controller's
+	 * spec, from a closed set if there is one, and starts
+	 * with all of them, filtering on the common pool.
+	 *
+	 * @param control The MastermindController to score with
+	 */
+	public OffHeapCandidateSet(MastermindController control) {
+		this(control, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * This constructor filters on the given pool.
+	 *
+	 * @param control The MastermindController to score with
+	 * @param pool The ForkJoinPool to filter on
+	 * @throws IllegalStateException When the spec's codes don't pack into an int
+	 */
+	public OffHeapCandidateSet(MastermindController control, ForkJoinPool pool) {
+		this.control = control;
+		this.spec = control.getSpec();
+		this.pool = pool;
+		// throws when the codes don't pack into an int
+		control.getPackedScorer();
+		this.codeCount = spec.codeCount();
+		this.feedbackCount = MastermindScorer.feedback(spec.getPegs(), 0) + 1;
+		this.chunks = free(codeCount).poll();
+		if (chunks == null) {
+			chunks = new IntBuffer[(int) ((codeCount + CHUNK - 1) >>> CHUNK_BITS)];
+			for (int i = 0; i < chunks.length; i++) {
+				int codes = (int) Math.min(CHUNK, codeCount - ((long) i << CHUNK_BITS));
+				chunks[i] = ByteBuffer.allocateDirect(codes * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+			}
+		}
+		reset();
+	}
+
+	private static Queue<IntBuffer[]> free(long codeCount) {
+		return FREE.computeIfAbsent(codeCount, count -> new ConcurrentLinkedQueue<>());
+	}
+
+	/**
+	 * Hands the set's buffers on to the next set made for
+	 * as many codes. The set can't be used afterwards, and
+	 * closing it again does nothing.
+	 */
+	public void close() {
+		if (chunks != null) {
+			free(codeCount).add(chunks);
+			chunks = null;
+			size = 0;
+		}
+	}
+
+	/**
+	 * Checks if a spec has too many codes for a solver
+	 * to keep its candidates in arrays on the heap.
+	 *
+	 * @param spec A MastermindSpec
+	 * @return Whether the spec has more than HEAP_LIMIT codes
+	 */
+	public static boolean isNeeded(MastermindSpec spec) {
+		return spec.codeCount() > HEAP_LIMIT;
+	}
+
+	/**
+	 * Puts every code of the spec back, in rank order
+	 * (see PackedScorer.allCodes).
+	 */
+	public void reset() {
+		if (spec.allowsDuplicates()) {
+			// chunk i holds the ranks from i * CHUNK up, so each can be filled on its own
+			pool.invoke(new ChunkTask(this::fill, 0, chunks.length));
+		} else {
+			fillUnique();
+		}
+		size = codeCount;
+	}
+
+	/**
+	 * Get how many codes are still consistent with the feedback.
+	 *
+	 * @return The number of candidates
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * Get one of the candidates.
+	 *
+	 * @param index From 0 up to size(), in rank order
+	 * @return The packed code
+	 */
+	public int get(long index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException(index + " is not below " + size);
+		}
+		return chunks[(int) (index >>> CHUNK_BITS)].get((int) index & CHUNK_MASK);
+	}
+
+	/**
+	 * Keeps only the codes that give the feedback for a guess.
+	 *
+	 * Every chunk in use is filtered in place in parallel,
+	 * then the kept codes are moved down to close the gaps,
+	 * keeping their order.
+	 *
+	 * @param guess The packed guess that was played
+	 * @param feedback The packed feedback it got
+	 * @return How many candidates are left
+	 */
+	public long filter(int guess, int feedback) {
+		int used = chunksInUse();
+		int[] kept = new int[used];
+		pool.invoke(new ChunkTask(chunk -> kept[chunk] = filterChunk(chunk, guess, feedback), 0, used));
+		long next = 0;
+		for (int chunk = 0; chunk < used; chunk++) {
+			move(chunk, kept[chunk], next);
+			next += kept[chunk];
+		}
+		size = next;
+		return size;
+	}
+
+	/**
+	 * Counts how many candidates give each feedback for a guess,
+	 * in parallel.
+	 *
+	 * @param guess The packed guess
+	 * @param counts The count for each packed feedback, added to (not cleared)
+	 * @return The largest count after adding
+	 */
+	public long countPartitions(int guess, long[] counts) {
+		pool.invoke(new ChunkTask(chunk -> {
+			int[] chunkCounts = new int[feedbackCount];
+			IntBuffer codes = chunks[chunk].duplicate();
+			int[] window = WINDOWS.get();
+			int end = chunkSize(chunk);
+			for (int at = 0; at < end; at += WINDOW) {
+				int n = Math.min(WINDOW, end - at);
+				codes.position(at);
+				codes.get(window, 0, n);
+				control.countPartitions(guess, window, n, chunkCounts);
+			}
+			synchronized (counts) {
+				for (int i = 0; i < chunkCounts.length; i++) {
+					counts[i] += chunkCounts[i];
+				}
+			}
+		}, 0, chunksInUse()));
+		long largest = 0;
+		for (long count : counts) {
+			largest = Math.max(largest, count);
+		}
+		return largest;
+	}
+
+	private int chunksInUse() {
+		return (int) ((size + CHUNK - 1) >>> CHUNK_BITS);
+	}
+
+	/**
+	 * Get how many of a chunk's codes are candidates.
+	 */
+	private int chunkSize(int chunk) {
+		return (int) Math.min(CHUNK, size - ((long) chunk << CHUNK_BITS));
+	}
+
+	/**
+	 * Filters one chunk in place, a window at a time.
+	 *
+	 * @return How many of its codes were kept, now at its front
+	 */
+	private int filterChunk(int chunk, int guess, int feedback) {
+		IntBuffer read = chunks[chunk].duplicate();
+		IntBuffer write = chunks[chunk].duplicate();
+		int[] window = WINDOWS.get();
+		int end = chunkSize(chunk);
+		int kept = 0;
+		for (int at = 0; at < end; at += WINDOW) {
+			int n = Math.min(WINDOW, end - at);
+			read.position(at);
+			read.get(window, 0, n);
+			int k = control.filter(guess, feedback, window, n);
+			// kept never passes at, so this only writes over codes already read
+			write.position(kept);
+			write.put(window, 0, k);
+			kept += k;
+		}
+		return kept;
+	}
+
+	/**
+	 * Moves the codes kept at the front of a chunk down to an
+	 * index at or before the chunk's start. Going a window at
+	 * a time from the front, every code is read before any
+	 * write can reach it.
+	 */
+	private void move(int chunk, int count, long to) {
+		long from = (long) chunk << CHUNK_BITS;
+		if (from == to) {
+			return;
+		}
+		IntBuffer read = chunks[chunk].duplicate();
+		int[] window = WINDOWS.get();
+		for (int at = 0; at < count; ) {
+			int n = Math.min(WINDOW, count - at);
+			// don't let one write run across the end of a chunk
+			n = Math.min(n, CHUNK - (int) (to & CHUNK_MASK));
+			read.position(at);
+			read.get(window, 0, n);
+			IntBuffer write = chunks[(int) (to >>> CHUNK_BITS)].duplicate();
+			write.position((int) to & CHUNK_MASK);
+			write.put(window, 0, n);
+			at += n;
+			to += n;
+		}
+	}
+
+	/**
+	 * Fills a chunk with the codes of its ranks, when every
+	 * rank is a code because duplicates are allowed.
+	 */
+	private void fill(int chunk) {
+		int pegs = spec.getPegs();
+		int colors = spec.getColors();
+		int[] digits = new int[pegs];
+		long rank = (long) chunk << CHUNK_BITS;
+		for (int i = 0; i < pegs; i++) {
+			digits[i] = (int) (rank % colors);
+			rank /= colors;
+		}
+		IntBuffer codes = chunks[chunk].duplicate();
+		codes.clear();
+		int[] window = WINDOWS.get();
+		while (codes.hasRemaining()) {
+			int n = Math.min(WINDOW, codes.remaining());
+			for (int w = 0; w < n; w++) {
+				window[w] = code(digits);
+				next(digits, colors);
+			}
+			codes.put(window, 0, n);
+		}
+	}
+
+	/**
+	 * Fills the chunks in order with the codes that don't
+	 * repeat a color.
+	 */
+	private void fillUnique() {
+		int pegs = spec.getPegs();
+		int colors = spec.getColors();
+		int[] digits = new int[pegs];
+		int[] window = WINDOWS.get();
+		int n = 0;
+		long at = 0;
+		do {
+			int used = 0;
+			boolean repeats = false;
+			for (int i = 0; i < pegs; i++) {
+				repeats |= (used & (1 << digits[i])) != 0;
+				used |= 1 << digits[i];
+			}
+			if (!repeats) {
+				window[n++] = code(digits);
+				if (n == WINDOW) {
+					put(at, window, n);
+					at += n;
+					n = 0;
+				}
+			}
+		} while (next(digits, colors));
+		put(at, window, n);
+	}
+
+	/**
+	 * Writes codes from a window to an index, which for
+	 * whole windows never runs across the end of a chunk.
+	 */
+	private void put(long at, int[] window, int n) {
+		IntBuffer write = chunks[(int) (at >>> CHUNK_BITS)].duplicate();
+		write.position((int) at & CHUNK_MASK);
+		write.put(window, 0, n);
+	}
+
+	private static int code(int[] digits) {
+		int code = 0;
+		for (int i = 0; i < digits.length; i++) {
+			code |= digits[i] << (i * PackedScorer.PEG_BITS);
+		}
+		return code;
+	}
+
+	/**
+	 * Counts up in base colors, peg 0 first.
+	 *
+	 * @return Whether it didn't wrap back to all 0
+	 */
+	private static boolean next(int[] digits, int colors) {
+		int i = 0;
+		while (i < digits.length && ++digits[i] == colors) {
+			digits[i++] = 0;
+		}
+		return i < digits.length;
+	}
+
+	/**
+	 * This inner class runs something for each chunk in a
+	 * range, splitting the range in half until it is one chunk.
+	 */
+	private static class ChunkTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final transient IntConsumer action;
+		private final int from;
+		private final int to;
+
+		ChunkTask(IntConsumer action, int from, int to) {
+			this.action = action;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > 1) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new ChunkTask(action, from, mid), new ChunkTask(action, mid, to));
+			} else if (to > from) {
+				action.accept(from);
+			}
+		}
+	}
+}
@@ -0,0 +1,612 @@
+package solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import controller.MastermindScorer;
+import controller.PackedScorer;
+import model.MastermindSpec;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file works out the strategy with
+ * the fewest guesses on average, by searching every
+ * guess at every position. The cost of a position (a
+ * set of candidates) is the total number of guesses its
+ * candidates still need, so the best guess is the one
+ * whose partitions cost the least added up. The search
+ * is kept in reach by:
+ *
+ *   memoization  positions already solved are looked up
+ *                by their candidates, and positions that
+ *                were cut off remember the bound they beat
+ *   pruning      a guess is dropped as soon as what its
+ *                partitions are known to cost plus a lower
+ *                bound for the rest reaches the best so far
+ *   symmetry     a guess is only tried once among those
+ *                that some swap of pegs and colors fixing
+ *                every earlier guess turns into each other
+ *                (see GuessSymmetry)
+ *
+ * The partitions of the opening guesses are searched in
+ * parallel on a ForkJoinPool. The result is a tree of
+ * moves that can also be played as a Codebreaker. The
+ * classic game needs 5625 guesses for its 1296 secrets,
+ * 4.3403 on average.
+ *
+ */
+public class OptimalSolver implements Codebreaker {
+	// sets this small are cheap enough to not remember
+	private static final int MEMO_MIN = 3;
+
+	private final MastermindSpec spec;
+	private final PackedScorer scorer;
+	private final int[] allCodes;
+	private final int pegs;
+	private final int solved;
+	private final int partitions;
+	private final int[] lowerBounds;
+	private final ConcurrentHashMap<Key, Entry> memo = new ConcurrentHashMap<>();
+	private final ForkJoinPool pool;
+	private Node root;
+	private Node node;
+
+	/**
+	 * This is the constructor for the solver.
+	 *
+	 * It doesn't search yet, see solve.
+	 *
+	 * @param spec The MastermindSpec to solve (at most 8 pegs)
+	 * @param pool The ForkJoinPool to search the opening guesses on
+	 */
+	public OptimalSolver(MastermindSpec spec, ForkJoinPool pool) {
+		this.spec = spec;
+		this.scorer = PackedScorer.forSpec(spec);
+		this.allCodes = scorer.allCodes();
+		this.pegs = spec.getPegs();
+		this.solved = MastermindScorer.feedback(pegs, 0);
+		this.partitions = solved + 1;
+		this.pool = pool;
+		this.lowerBounds = lowerBounds(allCodes.length, feedbackCount(pegs) - 1);
+	}
+
+	/**
+	 * This inner class is one move of the tree: the guess
+	 * to make, and the move after each feedback it can get.
+	 */
+	public static final class Node {
+		private final int guess;
+		private final int candidates;
+		private final int cost;
+		private final Node[] children;
+
+		Node(int guess, int candidates, int cost, Node[] children) {
+			this.guess = guess;
+			this.candidates = candidates;
+			this.cost = cost;
+			this.children = children;
+		}
+
+		/**
+		 * Get the packed guess to make.
+		 *
+		 * @return The packed guess
+		 */
+		public int getGuess() {
+			return guess;
+		}
+
+		/**
+		 * Get how many candidates are left at this move.
+		 *
+		 * @return The number of candidates
+		 */
+		public int getCandidates() {
+			return candidates;
+		}
+
+		/**
+		 * Get the total guesses the candidates need from here.
+		 *
+		 * @return The cost of the subtree
+		 */
+		public int getCost() {
+			return cost;
+		}
+
+		/**
+		 * Get the move after a feedback.
+		 *
+		 * @param feedback A packed feedback
+		 * @return The next move, or null when no candidate gives the feedback (or it is solved)
+		 */
+		public Node getChild(int feedback) {
+			return children == null || feedback >= children.length ? null : children[feedback];
+		}
+	}
+
+	/**
+	 * This inner class is a set of candidates used as a memo key.
+	 * The codes are always in allCodes order, so equal sets have
+	 * equal arrays.
+	 */
+	private static final class Key {
+		final int[] codes;
+		final int hash;
+
+		Key(int[] codes) {
+			this.codes = codes;
+			this.hash = Arrays.hashCode(codes);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Key && Arrays.equals(codes, ((Key) obj).codes);
+		}
+	}
+
+	/**
+	 * This inner class is what the memo knows about a set:
+	 * its exact cost and best guess, or only that its cost
+	 * is at least some bound.
+	 */
+	private static final class Entry {
+		final int cost;
+		final int guess;
+		final boolean exact;
+
+		Entry(int cost, int guess, boolean exact) {
+			this.cost = cost;
+			this.guess = guess;
+			this.exact = exact;
+		}
+	}
+
+	/**
+	 * Searches for the optimal tree.
+	 *
+	 * @return The root of the tree
+	 */
+	public Node solve() {
+		if (root == null) {
+			int[] history = new int[0];
+			solveRoot(allCodes, history);
+			root = build(allCodes, history);
+			node = root;
+		}
+		return root;
+	}
+
+	/**
+	 * Gets the cost of the whole game, splitting the
+	 * partitions of each opening guess across the pool.
+	 */
+	private void solveRoot(int[] set, int[] history) {
+		int n = set.length;
+		int best = Integer.MAX_VALUE;
+		int bestGuess = 0;
+		// any int can be a packed code, so whether a guess was found is kept apart from it
+		boolean found = false;
+		for (int[] option : options(set, n, history)) {
+			int guess = option[0];
+			int bound = option[1];
+			if (bound >= best) {
+				break;
+			}
+			int[][] parts = partition(guess, set, n);
+			int[] next = Arrays.copyOf(history, history.length + 1);
+			next[history.length] = guess;
+			List<RecursiveTask<Integer>> tasks = new ArrayList<>();
+			List<Integer> limits = new ArrayList<>();
+			for (int[] part : parts) {
+				if (part == null) {
+					continue;
+				}
+				// the part must cost less than the best, less what every other part costs at least
+				int limit = best == Integer.MAX_VALUE ? Integer.MAX_VALUE : best - bound + lowerBounds[part.length];
+				limits.add(limit);
+				tasks.add(new RecursiveTask<Integer>() {
+					private static final long serialVersionUID = 1L;
+
+					@Override
+					protected Integer compute() {
+						return search(part, part.length, limit, next);
+					}
+				});
+			}
+			pool.invoke(new RecursiveTask<Void>() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected Void compute() {
+					invokeAll(tasks);
+					return null;
+				}
+			});
+			int total = n;
+			boolean within = true;
+			for (int i = 0; i < tasks.size(); i++) {
+				int cost = tasks.get(i).join();
+				total += cost;
+				within &= cost < limits.get(i);
+			}
+			if (within && total < best) {
+				best = total;
+				bestGuess = guess;
+				found = true;
+			}
+		}
+		memo.put(new Key(set), new Entry(best, bestGuess, found));
+	}
+
+	/**
+	 * Gets the cost of a set of candidates: the total number
+	 * of guesses, counting the next one, that its candidates
+	 * need with the best strategy.
+	 *
+	 * @param set The candidates, in allCodes order
+	 * @param n How many candidates
+	 * @param limit Only costs below this matter
+	 * @param history The guesses made so far
+	 * @return The exact cost when it is below limit, otherwise a lower bound of at least limit
+	 */
+	private int search(int[] set, int n, int limit, int[] history) {
+		if (n == 1) {
+			return 1;
+		}
+		if (n == 2) {
+			return 3;
+		}
+		if (lowerBounds[n] >= limit) {
+			return lowerBounds[n];
+		}
+		Key key = n >= MEMO_MIN ? new Key(set) : null;
+		if (key != null) {
+			Entry entry = memo.get(key);
+			if (entry != null && (entry.exact || entry.cost >= limit)) {
+				return entry.cost;
+			}
+		}
+		int best = limit;
+		int bestGuess = 0;
+		// the cost is only exact when a guess beat the limit
+		boolean found = false;
+		int[] next = Arrays.copyOf(history, history.length + 1);
+		for (int[] option : options(set, n, history)) {
+			int guess = option[0];
+			int bound = option[1];
+			if (bound >= best) {
+				break;
+			}
+			int[][] parts = partition(guess, set, n);
+			next[history.length] = guess;
+			int total = bound;
+			for (int[] part : parts) {
+				if (part == null) {
+					continue;
+				}
+				int lower = lowerBounds[part.length];
+				int cost = search(part, part.length, best - total + lower, next);
+				total += cost - lower;
+				if (total >= best) {
+					break;
+				}
+			}
+			if (total < best) {
+				best = total;
+				bestGuess = guess;
+				found = true;
+				if (best == lowerBounds[n]) {
+					break;
+				}
+			}
+		}
+		if (key != null) {
+			// a bound never replaces an exact cost or a higher bound another thread found
+			memo.merge(key, new Entry(best, bestGuess, found),
+					(old, fresh) -> old.exact || (!fresh.exact && old.cost >= fresh.cost) ? old : fresh);
+		}
+		return best;
+	}
+
+	/**
+	 * Lists the guesses worth trying for a set, best bound first.
+	 *
+	 * A guess is only listed if it is the smallest of the codes
+	 * that the symmetries of the history turn it into, and if it
+	 * would split the set at all. Its bound is what the set would
+	 * cost if every partition of it cost only its lower bound.
+	 *
+	 * @return Pairs of a packed guess and its bound
+	 */
+	private List<int[]> options(int[] set, int n, int[] history) {
+		int[] counts = new int[partitions];
+		List<int[]> options = new ArrayList<>();
+		// a candidate that splits the rest into parts of at most 2 costs
+		// exactly its bound, so one that meets the lower bound is the answer
+		for (int i = 0; i < n; i++) {
+			Arrays.fill(counts, 0);
+			int largest = scorer.countPartitions(set[i], set, n, counts);
+			if (largest <= 2 && bound(counts, n) == lowerBounds[n]) {
+				options.add(new int[] { set[i], lowerBounds[n], 0 });
+				return options;
+			}
+		}
+		GuessSymmetry symmetry = GuessSymmetry.of(spec, history);
+		for (int guess : allCodes) {
+			if (!symmetry.isCanonical(guess)) {
+				continue;
+			}
+			Arrays.fill(counts, 0);
+			int largest = scorer.countPartitions(guess, set, n, counts);
+			if (largest == n && counts[solved] == 0) {
+				continue; // every candidate gives the same feedback, nothing is learned
+			}
+			int bound = bound(counts, n);
+			// candidates first on equal bounds, they can end the game right away
+			options.add(new int[] { guess, bound, counts[solved] > 0 ? 0 : 1 });
+		}
+		options.sort((a, b) -> a[1] != b[1] ? Integer.compare(a[1], b[1]) : Integer.compare(a[2], b[2]));
+		return options;
+	}
+
+	/**
+	 * Get what a set would cost if every partition of it
+	 * cost only its lower bound.
+	 */
+	private int bound(int[] counts, int n) {
+		int bound = n;
+		for (int fb = 0; fb < solved; fb++) {
+			bound += lowerBounds[counts[fb]];
+		}
+		return bound;
+	}
+
+	/**
+	 * Splits a set by the feedback each candidate gives a guess.
+	 *
+	 * @return The candidates for each packed feedback, in allCodes
+	 * order, or null where there are none (and always at solved)
+	 */
+	private int[][] partition(int guess, int[] set, int n) {
+		int[] feedback = new int[n];
+		scorer.scoreAll(guess, set, n, feedback);
+		int[] counts = new int[partitions];
+		for (int i = 0; i < n; i++) {
+			counts[feedback[i]]++;
+		}
+		int[][] parts = new int[partitions][];
+		for (int fb = 0; fb < solved; fb++) {
+			if (counts[fb] > 0) {
+				parts[fb] = new int[counts[fb]];
+			}
+		}
+		Arrays.fill(counts, 0);
+		for (int i = 0; i < n; i++) {
+			int fb = feedback[i];
+			if (fb != solved) {
+				parts[fb][counts[fb]++] = set[i];
+			}
+		}
+		return parts;
+	}
+
+	/**
+	 * Builds the tree of best moves for a set from the memo,
+	 * searching any set the memo doesn't know exactly.
+	 */
+	private Node build(int[] set, int[] history) {
+		int n = set.length;
+		int guess;
+		int cost;
+		if (n <= 2) {
+			guess = set[0];
+			cost = 2 * n - 1;
+		} else {
+			Entry entry = memo.get(new Key(set));
+			if (entry == null || !entry.exact) {
+				search(set, n, Integer.MAX_VALUE, history);
+				entry = memo.get(new Key(set));
+			}
+			guess = entry.guess;
+			cost = entry.cost;
+		}
+		int[][] parts = partition(guess, set, n);
+		int[] next = Arrays.copyOf(history, history.length + 1);
+		next[history.length] = guess;
+		Node[] children = new Node[partitions];
+		for (int fb = 0; fb < solved; fb++) {
+			if (parts[fb] != null) {
+				children[fb] = build(parts[fb], next);
+			}
+		}
+		return new Node(guess, n, cost, children);
+	}
+
+	/**
+	 * Works out a lower bound on the cost of every set size:
+	 * the cost if every guess split its set as evenly as the
+	 * number of feedbacks allows, with one candidate solved.
+	 *
+	 * @param max The largest set size
+	 * @param feedbacks How many feedbacks other than solved there are
+	 * @return The lower bound for each size
+	 */
+	private static int[] lowerBounds(int max, int feedbacks) {
+		int[] bounds = new int[max + 1];
+		// sums[j][m]: the least total bound of j parts of m candidates
+		int[][] sums = new int[feedbacks + 1][max + 1];
+		for (int[] row : sums) {
+			Arrays.fill(row, Integer.MAX_VALUE / 2);
+		}
+		sums[0][0] = 0;
+		for (int n = 1; n <= max; n++) {
+			// first finish the sums up to n-1 candidates, and those of n with at least 2 parts
+			for (int j = 1; j <= feedbacks; j++) {
+				for (int m : new int[] { n - 1, n }) {
+					if (m < j || (m == n && j == 1)) {
+						continue;
+					}
+					int least = Integer.MAX_VALUE / 2;
+					for (int p = 1; p <= m - j + 1 && p < n; p++) {
+						least = Math.min(least, sums[j - 1][m - p] + bounds[p]);
+					}
+					sums[j][m] = least;
+				}
+			}
+			int least = Integer.MAX_VALUE / 2;
+			for (int j = 0; j <= feedbacks; j++) {
+				least = Math.min(least, sums[j][n - 1]);
+				if (j >= 2) {
+					least = Math.min(least, sums[j][n]);
+				}
+			}
+			bounds[n] = n + least;
+			sums[1][n] = bounds[n];
+		}
+		return bounds;
+	}
+
+	/**
+	 * Counts the feedbacks a guess can get, leaving out all
+	 * right but one right color wrong place, which can't happen.
+	 */
+	private static int feedbackCount(int pegs) {
+		return (pegs + 1) * (pegs + 2) / 2 - 1;
+	}
+
+
+	@Override
+	public void reset() {
+		node = solve();
+	}
+
+	@Override
+	public int nextGuess() {
+		if (node == null) {
+			throw new IllegalStateException("no code is consistent with the feedback given");
+		}
+		return node.guess;
+	}
+
+	@Override
+	public void feedback(int guess, int feedback) {
+		node = node == null || guess != node.guess ? null : node.getChild(feedback);
+	}
+
+	@Override
+	public boolean isDeterministic() {
+		return true;
+	}
+
+	/**
+	 * Get how many positions the memo holds.
+	 *
+	 * @return The number of remembered sets
+	 */
+	public int getMemoSize() {
+		return memo.size();
+	}
+
+	/**
+	 * Writes out the tree, one move per line, indented
+	 * by depth, with the feedback that leads to each move.
+	 *
+	 * @param out Where to write
+	 * @param node The move to start from
+	 * @param depth The depth of the move
+	 */
+	public void print(StringBuilder out, Node node, int depth) {
+		out.append(scorer.decode(node.guess)).append(" (").append(node.candidates).append(")\n");
+		for (int fb = 0; fb < solved; fb++) {
+			Node child = node.getChild(fb);
+			if (child != null) {
+				for (int i = 0; i <= depth; i++) {
+					out.append("  ");
+				}
+				out.append(MastermindScorer.blacks(fb)).append('/').append(MastermindScorer.whites(fb)).append(' ');
+				print(out, child, depth + 1);
+			}
+		}
+	}
+
+	/**
+	 * Counts how many secrets the tree solves with each
+	 * number of guesses.
+	 *
+	 * @param node The move to start from
+	 * @param depth The number of the move, starting from 1
+	 * @param solvedAt Where to add the counts, by number of guesses
+	 */
+	private void countDepths(Node node, int depth, long[] solvedAt) {
+		int inChildren = 0;
+		for (int fb = 0; fb < solved; fb++) {
+			Node child = node.getChild(fb);
+			if (child != null) {
+				countDepths(child, depth + 1, solvedAt);
+				inChildren += child.candidates;
+			}
+		}
+		// whatever isn't passed on to a child is the guess itself
+		solvedAt[depth] += node.candidates - inChildren;
+	}
+
+	/**
+	 * Searches for the optimal tree of a spec (the classic
+	 * game by default) and prints its statistics and the
+	 * tree itself.
+	 *
+	 * It understands the MastermindSpec.fromArgs arguments,
+	 * "-threads N" (default every core), and "-quiet" to
+	 * leave out the tree.
+	 *
+	 * @param args The command arguments
+	 */
+	public static void main(String[] args) {
+		int threads = Runtime.getRuntime().availableProcessors();
+		for (int i = 0; i + 1 < args.length; i++) {
+			if (args[i].equals("-threads")) {
+				threads = Integer.parseInt(args[i + 1]);
+			}
+		}
+		MastermindSpec spec = MastermindSpec.fromArgs(args);
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		OptimalSolver solver = new OptimalSolver(spec, pool);
+		long start = System.nanoTime();
+		Node root = solver.solve();
+		long elapsed = System.nanoTime() - start;
+		pool.shutdown();
+
+		long[] solvedAt = new long[64];
+		solver.countDepths(root, 1, solvedAt);
+		int deepest = 0;
+		for (int depth = 1; depth < solvedAt.length; depth++) {
+			if (solvedAt[depth] > 0) {
+				deepest = depth;
+			}
+		}
+		if (!Arrays.asList(args).contains("-quiet")) {
+			StringBuilder tree = new StringBuilder();
+			solver.print(tree, root, 0);
+			System.out.print(tree);
+			System.out.println();
+		}
+		System.out.printf("%s: %d secrets, %d guesses in total, %.4f on average, worst %d%n",
+				spec, root.candidates, root.cost, (double) root.cost / root.candidates, deepest);
+		for (int depth = 1; depth <= deepest; depth++) {
+			System.out.printf("  solved on guess %d: %d%n", depth, solvedAt[depth]);
+		}
+		System.out.printf("searched in %.1f s, %d positions remembered%n", elapsed / 1e9, solver.getMemoSize());
+	}
+}
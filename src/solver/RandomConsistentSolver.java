@@ -0,0 +1,94 @@
+package solver;
+
+import java.util.SplittableRandom;
+
+import controller.MastermindController;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file guesses a random code out of
+ * the ones still consistent with every feedback so far.
+ * It costs one pass over the candidates per move and is
+ * surprisingly close to the searching solvers on average.
+ * Specs with too many codes for the heap keep their
+ * candidates in an OffHeapCandidateSet.
+ *
+ */
+public class RandomConsistentSolver implements Codebreaker {
+	private final MastermindController control;
+	private final SplittableRandom random;
+	private final int[] allCodes;
+	private final int[] candidates;
+	private int candidateCount;
+	// used instead of the arrays for specs with too many codes for the heap
+	private final OffHeapCandidateSet offHeap;
+
+	/**
+	 * This is the constructor for the solver.
+	 *
+	 * @param control The MastermindController to score with
+	 * @param random Where the guesses are picked from
+	 */
+	public RandomConsistentSolver(MastermindController control, SplittableRandom random) {
+		this.control = control;
+		this.random = random;
+		if (OffHeapCandidateSet.isNeeded(control.getSpec())) {
+			this.offHeap = new OffHeapCandidateSet(control);
+			this.allCodes = null;
+			this.candidates = null;
+		} else {
+			this.offHeap = null;
+			this.allCodes = control.getPackedScorer().allCodes();
+			this.candidates = new int[allCodes.length];
+		}
+		reset();
+	}
+
+	@Override
+	public void reset() {
+		if (offHeap != null) {
+			offHeap.reset();
+			return;
+		}
+		System.arraycopy(allCodes, 0, candidates, 0, allCodes.length);
+		candidateCount = allCodes.length;
+	}
+
+	/**
+	 * Picks a random candidate.
+	 *
+	 * @return The packed next guess
+	 * @throws IllegalStateException When no code is consistent with the feedback
+	 */
+	@Override
+	public int nextGuess() {
+		if (offHeap != null) {
+			if (offHeap.size() == 0) {
+				throw new IllegalStateException("no code is consistent with the feedback given");
+			}
+			return offHeap.get(random.nextLong(offHeap.size()));
+		}
+		if (candidateCount == 0) {
+			throw new IllegalStateException("no code is consistent with the feedback given");
+		}
+		return candidates[random.nextInt(candidateCount)];
+	}
+
+	@Override
+	public void feedback(int guess, int feedback) {
+		if (offHeap != null) {
+			offHeap.filter(guess, feedback);
+			return;
+		}
+		candidateCount = control.filter(guess, feedback, candidates, candidateCount);
+	}
+
+	@Override
+	public void close() {
+		if (offHeap != null) {
+			offHeap.close();
+		}
+	}
+}
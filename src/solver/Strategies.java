@@ -0,0 +1,83 @@
+package solver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file finds codebreaker strategies
+ * by name, so tools can let the user pick one:
+ *
+ *   random    a random consistent code (RandomConsistentSolver)
+ *   first     the lowest consistent code (FirstConsistentSolver)
+ *   minimax   the smallest worst case (MinimaxSolver)
+ *   expected  the smallest expected size (ExpectedSizeSolver)
+ *   entropy   the most information (EntropySolver)
+ *   parts     the most partitions (MostPartsSolver)
+ *   knuth     minimax on every core (KnuthSolver)
+ *   book=FILE the moves of a StrategyBook, then knuth
+ *             for positions the book doesn't have
+ *
+ * The time budget only applies to the strategies that
+ * search (minimax, expected, entropy and parts).
+ *
+ */
+public final class Strategies {
+	/** The names forName knows, in the order above, besides book=FILE. */
+	public static final List<String> NAMES = Collections.unmodifiableList(
+			Arrays.asList("random", "first", "minimax", "expected", "entropy", "parts", "knuth"));
+
+	private Strategies() {
+	}
+
+	/**
+	 * Get the factory for a strategy.
+	 *
+	 * @param name One of NAMES, or book=FILE
+	 * @param budgetNanos How long a move may take, or 0 for no limit
+	 * @return The factory for the strategy's codebreakers
+	 * @throws IllegalArgumentException When the name isn't one of NAMES
+	 * @throws UncheckedIOException When a book can't be opened
+	 */
+	public static Codebreaker.Factory forName(String name, long budgetNanos) {
+		if (name.startsWith("book=")) {
+			StrategyBook book;
+			try {
+				book = StrategyBook.open(Paths.get(name.substring("book=".length())));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			// every codebreaker shares the one mapping of the book
+			return (control, random) -> {
+				if (!control.getSpec().equals(book.getSpec())) {
+					throw new IllegalArgumentException("the book plays " + book.getSpec() + ", not " + control.getSpec());
+				}
+				return book.player(new KnuthSolver(control));
+			};
+		}
+		switch (name) {
+		case "random":
+			return (control, random) -> new RandomConsistentSolver(control, random);
+		case "first":
+			return (control, random) -> new FirstConsistentSolver(control);
+		case "minimax":
+			return (control, random) -> new MinimaxSolver(control, budgetNanos);
+		case "expected":
+			return (control, random) -> new ExpectedSizeSolver(control, budgetNanos);
+		case "entropy":
+			return (control, random) -> new EntropySolver(control, budgetNanos);
+		case "parts":
+			return (control, random) -> new MostPartsSolver(control, budgetNanos);
+		case "knuth":
+			return (control, random) -> new KnuthSolver(control);
+		default:
+			throw new IllegalArgumentException("unknown strategy " + name + ", try one of " + NAMES);
+		}
+	}
+}
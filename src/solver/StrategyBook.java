@@ -0,0 +1,393 @@
+package solver;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import controller.MastermindController;
+import controller.MastermindScorer;
+import controller.PackedScorer;
+import model.MastermindModel;
+import model.MastermindSpec;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file keeps a decision tree (such as
+ * the one OptimalSolver finds) in a binary file, and reads
+ * it back by mapping the file into memory, so a move is a
+ * couple of reads from the mapped pages with nothing to
+ * work out first. Processes that open the same book share
+ * the pages through the operating system's cache. The file
+ * is laid out as:
+ *
+ *   header   MAGIC, VERSION, pegs, colors, duplicates (0 or 1),
+ *            slots, nodes (7 ints, padded to HEADER_BYTES)
+ *   nodes    for each node: its packed guess, then for each
+ *            slot the index of the node after that feedback
+ *            (or -1 when the book doesn't go on)
+ *
+ * A slot is one of the feedbacks a guess can get other than
+ * solved, numbered in packed feedback order. Nodes are stored
+ * breadth first from the root (node 0), so the opening moves
+ * are close together at the start of the file.
+ *
+ */
+public final class StrategyBook {
+	/** The first int of every book ("MMBK"). */
+	public static final int MAGIC = 0x4D4D424B;
+	/** The version of the file layout. */
+	public static final int VERSION = 1;
+	/** The bytes before the first node. */
+	public static final int HEADER_BYTES = 32;
+
+	private final MastermindSpec spec;
+	private final ByteBuffer buffer;
+	private final int[] slots;
+	private final int nodeBytes;
+	private final int nodes;
+
+	/**
+	 * This is the constructor for a book over its bytes.
+	 */
+	private StrategyBook(MastermindSpec spec, ByteBuffer buffer, int nodes) {
+		this.spec = spec;
+		this.buffer = buffer;
+		this.slots = slots(spec.getPegs());
+		this.nodeBytes = Integer.BYTES * (1 + slotCount(slots));
+		this.nodes = nodes;
+	}
+
+	/**
+	 * Opens a book by mapping its file read-only.
+	 *
+	 * The mapping stays valid after the channel is closed.
+	 *
+	 * @param path The book's file
+	 * @return The book
+	 * @throws IOException When the file can't be read or isn't a book
+	 */
+	public static StrategyBook open(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (channel.size() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+				throw new IOException(path + " is not a strategy book");
+			}
+			if (buffer.getInt(4) != VERSION) {
+				throw new IOException(path + " is version " + buffer.getInt(4) + ", not " + VERSION);
+			}
+			MastermindSpec spec = new MastermindSpec(buffer.getInt(8), buffer.getInt(12), buffer.getInt(16) != 0);
+			int nodes = buffer.getInt(24);
+			StrategyBook book = new StrategyBook(spec, buffer, nodes);
+			if (buffer.getInt(20) != slotCount(book.slots)
+					|| channel.size() != HEADER_BYTES + (long) nodes * book.nodeBytes) {
+				throw new IOException(path + " is damaged");
+			}
+			return book;
+		}
+	}
+
+	/**
+	 * Writes a tree out as a book.
+	 *
+	 * @param root The root of the tree
+	 * @param spec The MastermindSpec the tree plays
+	 * @param maxDepth How many moves deep to keep, counting the root as 1
+	 * @param path Where to write the book
+	 * @throws IOException When the file can't be written
+	 */
+	public static void write(OptimalSolver.Node root, MastermindSpec spec, int maxDepth, Path path) throws IOException {
+		int[] slots = slots(spec.getPegs());
+		int slotCount = slotCount(slots);
+		int solved = MastermindScorer.feedback(spec.getPegs(), 0);
+
+		// numbers the nodes breadth first
+		List<OptimalSolver.Node> order = new ArrayList<>();
+		List<Integer> depths = new ArrayList<>();
+		ArrayDeque<Integer> queue = new ArrayDeque<>();
+		order.add(root);
+		depths.add(1);
+		queue.add(0);
+		int[][] children = new int[1][];
+		while (!queue.isEmpty()) {
+			int index = queue.poll();
+			OptimalSolver.Node node = order.get(index);
+			int[] next = new int[slotCount];
+			Arrays.fill(next, -1);
+			if (depths.get(index) < maxDepth) {
+				for (int fb = 0; fb < solved; fb++) {
+					OptimalSolver.Node child = node.getChild(fb);
+					if (child != null) {
+						next[slots[fb]] = order.size();
+						queue.add(order.size());
+						order.add(child);
+						depths.add(depths.get(index) + 1);
+					}
+				}
+			}
+			if (index >= children.length) {
+				children = Arrays.copyOf(children, Math.max(index + 1, children.length * 2));
+			}
+			children[index] = next;
+		}
+
+		int nodeBytes = Integer.BYTES * (1 + slotCount);
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + order.size() * nodeBytes);
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(spec.getPegs()).putInt(spec.getColors())
+				.putInt(spec.allowsDuplicates() ? 1 : 0).putInt(slotCount).putInt(order.size());
+		buffer.position(HEADER_BYTES);
+		for (int i = 0; i < order.size(); i++) {
+			buffer.putInt(order.get(i).getGuess());
+			for (int child : children[i]) {
+				buffer.putInt(child);
+			}
+		}
+		buffer.flip();
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(true);
+		}
+	}
+
+	/**
+	 * Numbers the feedbacks a guess can get other than solved.
+	 *
+	 * @param pegs The number of pegs
+	 * @return The slot of each packed feedback, or -1 for those that can't happen or solved
+	 */
+	private static int[] slots(int pegs) {
+		int solved = MastermindScorer.feedback(pegs, 0);
+		int[] slots = new int[solved + 1];
+		Arrays.fill(slots, -1);
+		int slot = 0;
+		for (int fb = 0; fb < solved; fb++) {
+			int black = MastermindScorer.blacks(fb);
+			int white = MastermindScorer.whites(fb);
+			if (black + white <= pegs && !(black == pegs - 1 && white == 1)) {
+				slots[fb] = slot++;
+			}
+		}
+		return slots;
+	}
+
+	/**
+	 * Counts the slots that are in use.
+	 */
+	private static int slotCount(int[] slots) {
+		int count = 0;
+		for (int slot : slots) {
+			if (slot >= 0) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Get the spec the book plays.
+	 *
+	 * @return The book's MastermindSpec
+	 */
+	public MastermindSpec getSpec() {
+		return spec;
+	}
+
+	/**
+	 * Get how many moves the book holds.
+	 *
+	 * @return The number of nodes
+	 */
+	public int getNodeCount() {
+		return nodes;
+	}
+
+	/**
+	 * Get the first move of the book.
+	 *
+	 * @return The root node
+	 */
+	public int root() {
+		return 0;
+	}
+
+	/**
+	 * Get the guess to make at a node.
+	 *
+	 * @param node A node of the book
+	 * @return The packed guess
+	 */
+	public int guess(int node) {
+		return buffer.getInt(HEADER_BYTES + node * nodeBytes);
+	}
+
+	/**
+	 * Get the node after a feedback.
+	 *
+	 * @param node A node of the book
+	 * @param feedback The packed feedback its guess got
+	 * @return The next node, or -1 when the book doesn't go on from there
+	 */
+	public int child(int node, int feedback) {
+		int slot = feedback < slots.length ? slots[feedback] : -1;
+		if (slot < 0) {
+			return -1;
+		}
+		return buffer.getInt(HEADER_BYTES + node * nodeBytes + Integer.BYTES * (1 + slot));
+	}
+
+	/**
+	 * Makes a codebreaker that plays from the book while it can.
+	 *
+	 * Once a game leaves the book, the fallback is told the
+	 * game so far and plays the rest of it.
+	 *
+	 * @param fallback The codebreaker for positions the book doesn't have
+	 * @return The codebreaker
+	 */
+	public Codebreaker player(Codebreaker fallback) {
+		return new Player(fallback);
+	}
+
+	/**
+	 * This inner class plays a game from the book.
+	 */
+	private final class Player implements Codebreaker {
+		private final Codebreaker fallback;
+		private int node;
+		// the guesses and feedback of the game so far, in turn
+		private int[] history = new int[16];
+		private int played;
+		private boolean outOfBook;
+
+		Player(Codebreaker fallback) {
+			this.fallback = fallback;
+			reset();
+		}
+
+		@Override
+		public void reset() {
+			node = root();
+			played = 0;
+			outOfBook = false;
+		}
+
+		@Override
+		public int nextGuess() {
+			if (!outOfBook && node >= 0) {
+				return guess(node);
+			}
+			if (!outOfBook) {
+				fallback.reset();
+				for (int i = 0; i < played; i += 2) {
+					fallback.feedback(history[i], history[i + 1]);
+				}
+				outOfBook = true;
+			}
+			return fallback.nextGuess();
+		}
+
+		@Override
+		public void feedback(int guess, int feedback) {
+			if (outOfBook) {
+				fallback.feedback(guess, feedback);
+				return;
+			}
+			if (played == history.length) {
+				history = Arrays.copyOf(history, played * 2);
+			}
+			history[played++] = guess;
+			history[played++] = feedback;
+			node = node >= 0 && guess == guess(node) ? child(node, feedback) : -1;
+		}
+
+		@Override
+		public boolean isDeterministic() {
+			return fallback.isDeterministic();
+		}
+
+		@Override
+		public void close() {
+			fallback.close();
+		}
+	}
+
+	/**
+	 * Writes or checks a book.
+	 *
+	 * "-write FILE" searches the optimal tree of the spec
+	 * (the MastermindSpec.fromArgs arguments) and writes it,
+	 * keeping "-depth N" moves (default all). "-read FILE"
+	 * opens a book, plays every secret from it (with
+	 * KnuthSolver off the book) and reports the guesses and
+	 * the time per move.
+	 *
+	 * @param args The command arguments
+	 * @throws IOException When the book can't be written or read
+	 */
+	public static void main(String[] args) throws IOException {
+		String write = null;
+		String read = null;
+		int depth = Integer.MAX_VALUE;
+		for (int i = 0; i + 1 < args.length; i++) {
+			if (args[i].equals("-write")) {
+				write = args[i + 1];
+			} else if (args[i].equals("-read")) {
+				read = args[i + 1];
+			} else if (args[i].equals("-depth")) {
+				depth = Integer.parseInt(args[i + 1]);
+			}
+		}
+		if (write != null) {
+			MastermindSpec spec = MastermindSpec.fromArgs(args);
+			OptimalSolver.Node root = new OptimalSolver(spec, ForkJoinPool.commonPool()).solve();
+			write(root, spec, depth, Paths.get(write));
+			System.out.println("wrote " + Paths.get(write).toFile().length() + " bytes to " + write);
+		}
+		if (read != null) {
+			long start = System.nanoTime();
+			StrategyBook book = open(Paths.get(read));
+			long opened = System.nanoTime() - start;
+			MastermindSpec spec = book.getSpec();
+			PackedScorer scorer = PackedScorer.forSpec(spec);
+			MastermindController control = new MastermindController(new MastermindModel(spec));
+			Codebreaker player = book.player(new KnuthSolver(control));
+			long guesses = 0;
+			int worst = 0;
+			long nanos = 0;
+			for (int secret : scorer.allCodes()) {
+				player.reset();
+				int count = 0;
+				while (true) {
+					long moveStart = System.nanoTime();
+					int guess = player.nextGuess();
+					nanos += System.nanoTime() - moveStart;
+					count++;
+					int feedback = scorer.score(secret, guess);
+					if (MastermindScorer.blacks(feedback) == spec.getPegs()) {
+						break;
+					}
+					player.feedback(guess, feedback);
+				}
+				guesses += count;
+				worst = Math.max(worst, count);
+			}
+			System.out.printf("%s: %d nodes, opened in %.3f ms%n", spec, book.getNodeCount(), opened / 1e6);
+			System.out.printf("%d secrets, %d guesses, %.4f on average, worst %d, %.1f ns per move%n",
+					scorer.allCodes().length, guesses, (double) guesses / scorer.allCodes().length, worst,
+					(double) nanos / guesses);
+		}
+	}
+}
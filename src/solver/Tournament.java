@@ -0,0 +1,312 @@
+package solver;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import controller.MastermindController;
+import controller.MastermindScorer;
+import controller.PackedScorer;
+import model.MastermindModel;
+import model.MastermindSpec;
+
+/**
+ *
+ * @author Aleksander Dimitrov
+ *
+ * Description: This file plays a codebreaker strategy
+ * against many random secrets and reports how it did:
+ * how many games took each number of guesses, the mean
+ * and worst number of guesses, how many games were won
+ * within the 10 guesses a MastermindModel allows, and
+ * how many games were played per second. The games are
+ * cut into chunks that run in parallel, and each chunk
+ * draws its secrets from its own SplittableRandom split
+ * off one seed in chunk order, so the same seed always
+ * gives the same results no matter how many threads ran.
+ * The moves of deterministic codebreakers are remembered
+ * across all games (see MemoizedCodebreaker), so such a
+ * strategy only works out each position once.
+ *
+ */
+public class Tournament {
+	// how many games one parallel task plays
+	private static final int CHUNK = 4096;
+	// a game still unsolved after this many guesses is given up on
+	private static final int MAX_MOVES = 64;
+
+	private final MastermindSpec spec;
+	private final Codebreaker.Factory strategy;
+	private final boolean useFeedbackTable;
+	private final PackedScorer scorer;
+	// every code, or null for specs with too many codes for the heap
+	private final int[] codes;
+
+	/**
+	 * This is the constructor for a tournament.
+	 *
+	 * @param spec The MastermindSpec of the games (at most 8 pegs)
+	 * @param strategy Makes the codebreaker for each chunk of games
+	 * @param useFeedbackTable Whether to score with the feedback table (classic game only)
+	 */
+	public Tournament(MastermindSpec spec, Codebreaker.Factory strategy, boolean useFeedbackTable) {
+		this.spec = spec;
+		this.strategy = strategy;
+		this.useFeedbackTable = useFeedbackTable;
+		this.scorer = PackedScorer.forSpec(spec);
+		this.codes = OffHeapCandidateSet.isNeeded(spec) ? null : scorer.allCodes();
+	}
+
+	/**
+	 * Plays games on a pool.
+	 *
+	 * @param games How many games to play
+	 * @param seed The seed all the secrets come from
+	 * @param pool The ForkJoinPool to play on
+	 * @return The results
+	 * @throws InterruptedException When interrupted while waiting for the games
+	 */
+	public Results play(long games, long seed, ForkJoinPool pool) throws InterruptedException {
+		MemoizedCodebreaker.Moves moves = new MemoizedCodebreaker.Moves(spec);
+		int chunks = (int) ((games + CHUNK - 1) / CHUNK);
+		SplittableRandom root = new SplittableRandom(seed);
+		SplittableRandom[] randoms = new SplittableRandom[chunks];
+		for (int i = 0; i < chunks; i++) {
+			randoms[i] = root.split();
+		}
+		long start = System.nanoTime();
+		try {
+			Results results = pool.submit(() -> IntStream.range(0, chunks).parallel()
+					.mapToObj(i -> playChunk(randoms[i], (int) Math.min(CHUNK, games - (long) i * CHUNK), moves))
+					.reduce(new Results(), Results::merge)).get();
+			results.nanos = System.nanoTime() - start;
+			return results;
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("a game failed", e.getCause());
+		}
+	}
+
+	/**
+	 * Plays one chunk of games with a codebreaker of its own,
+	 * which is closed once the chunk is done.
+	 *
+	 * @param random Where the chunk's secrets come from
+	 * @param games How many games to play
+	 * @param moves The moves of deterministic codebreakers, shared by every chunk
+	 * @return The chunk's results
+	 */
+	private Results playChunk(SplittableRandom random, int games, MemoizedCodebreaker.Moves moves) {
+		Results results = new Results();
+		// the controller only scores pairs, its own secret is never used
+		MastermindController control = new MastermindController(new MastermindModel(spec), useFeedbackTable);
+		Codebreaker breaker = strategy.create(control, random.split());
+		if (breaker.isDeterministic()) {
+			breaker = new MemoizedCodebreaker(breaker, moves);
+		}
+		try {
+			int pegs = spec.getPegs();
+			for (int game = 0; game < games; game++) {
+				int secret = randomSecret(random);
+				MastermindModel model = new MastermindModel(spec, scorer.decode(secret));
+				breaker.reset();
+				int guesses = 0;
+				boolean solved = false;
+				while (!solved && guesses < MAX_MOVES) {
+					int guess = breaker.nextGuess();
+					int feedback = control.scoreCodes(secret, guess);
+					guesses++;
+					solved = MastermindScorer.blacks(feedback) == pegs;
+					if (model.getGameOverVersion() == 0) {
+						model.updateGameOver(solved, guesses);
+					}
+					if (!solved) {
+						breaker.feedback(guess, feedback);
+					}
+				}
+				results.add(solved ? guesses : 0, model.isWon());
+			}
+		} finally {
+			// hands off-heap candidates on to the next chunk instead of leaving them to the garbage collector
+			breaker.close();
+		}
+		return results;
+	}
+
+	/**
+	 * Picks a secret, each code of the spec as likely as any other.
+	 *
+	 * @param random Where the secret comes from
+	 * @return The packed secret
+	 */
+	private int randomSecret(SplittableRandom random) {
+		if (codes != null) {
+			return codes[random.nextInt(codes.length)];
+		}
+		while (true) {
+			int secret = 0;
+			int used = 0;
+			for (int i = 0; i < spec.getPegs(); i++) {
+				int color = random.nextInt(spec.getColors());
+				secret |= color << (i * PackedScorer.PEG_BITS);
+				used |= 1 << color;
+			}
+			// a secret that repeats a color is drawn again when the spec doesn't allow it
+			if (spec.allowsDuplicates() || Integer.bitCount(used) == spec.getPegs()) {
+				return secret;
+			}
+		}
+	}
+
+	/**
+	 * This inner class adds up the results of many games.
+	 */
+	public static class Results {
+		// how many games took each number of guesses, games given up on are at 0
+		private final long[] histogram = new long[MAX_MOVES + 1];
+		private long games;
+		private long wins;
+		private long totalGuesses;
+		private int worst;
+		private long nanos;
+
+		void add(int guesses, boolean won) {
+			histogram[guesses]++;
+			games++;
+			totalGuesses += guesses;
+			worst = Math.max(worst, guesses);
+			if (won) {
+				wins++;
+			}
+		}
+
+		Results merge(Results other) {
+			Results merged = new Results();
+			for (int i = 0; i < histogram.length; i++) {
+				merged.histogram[i] = histogram[i] + other.histogram[i];
+			}
+			merged.games = games + other.games;
+			merged.wins = wins + other.wins;
+			merged.totalGuesses = totalGuesses + other.totalGuesses;
+			merged.worst = Math.max(worst, other.worst);
+			return merged;
+		}
+
+		/**
+		 * Get how many games took a number of guesses.
+		 *
+		 * @param guesses A number of guesses, or 0 for the games never solved
+		 * @return The number of games
+		 */
+		public long getGames(int guesses) {
+			return guesses < histogram.length ? histogram[guesses] : 0;
+		}
+
+		/**
+		 * Get how many games were played.
+		 *
+		 * @return The number of games
+		 */
+		public long getGames() {
+			return games;
+		}
+
+		/**
+		 * Get the mean number of guesses of the solved games.
+		 *
+		 * @return The mean guesses
+		 */
+		public double getMean() {
+			long solved = games - histogram[0];
+			return solved == 0 ? 0 : (double) totalGuesses / solved;
+		}
+
+		/**
+		 * Get the most guesses any solved game took.
+		 *
+		 * @return The worst case
+		 */
+		public int getWorst() {
+			return worst;
+		}
+
+		/**
+		 * Get the share of games won within the model's 10 guesses.
+		 *
+		 * @return The win rate, from 0 to 1
+		 */
+		public double getWinRate() {
+			return games == 0 ? 0 : (double) wins / games;
+		}
+
+		/**
+		 * Get how many games were played per second.
+		 *
+		 * @return The games per second
+		 */
+		public double getGamesPerSecond() {
+			return nanos == 0 ? 0 : games / (nanos / 1e9);
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder report = new StringBuilder();
+			report.append(String.format("%d games in %.2f s (%.0f games/sec)%n", games, nanos / 1e9, getGamesPerSecond()));
+			report.append(String.format("mean %.4f guesses, worst %d, won within 10 guesses: %.4f%%%n",
+					getMean(), worst, getWinRate() * 100));
+			report.append(String.format("%7s %12s %9s%n", "guesses", "games", "share"));
+			for (int i = 1; i < histogram.length; i++) {
+				if (histogram[i] > 0) {
+					report.append(String.format("%7d %12d %8.4f%%%n", i, histogram[i], 100.0 * histogram[i] / games));
+				}
+			}
+			if (histogram[0] > 0) {
+				report.append(String.format("%7s %12d %8.4f%%%n", "unsolved", histogram[0], 100.0 * histogram[0] / games));
+			}
+			return report.toString();
+		}
+	}
+
+	/**
+	 * Plays a tournament and prints the results.
+	 *
+	 * It understands "-strategy NAME" (see Strategies,
+	 * default knuth), "-budget MS" for the time a move may
+	 * take (default no limit), "-games N" (default 1000000), "-seed S"
+	 * (default 1), "-threads N" (default every core), "-table"
+	 * to score with the feedback table, and the
+	 * MastermindSpec.fromArgs arguments.
+	 *
+	 * @param args The command arguments
+	 * @throws InterruptedException When interrupted while playing
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		String name = "knuth";
+		long games = 1000000;
+		long seed = 1;
+		double budget = 0;
+		int threads = Runtime.getRuntime().availableProcessors();
+		for (int i = 0; i + 1 < args.length; i++) {
+			if (args[i].equals("-strategy")) {
+				name = args[i + 1];
+			} else if (args[i].equals("-games")) {
+				games = Long.parseLong(args[i + 1]);
+			} else if (args[i].equals("-budget")) {
+				budget = Double.parseDouble(args[i + 1]);
+			} else if (args[i].equals("-seed")) {
+				seed = Long.parseLong(args[i + 1]);
+			} else if (args[i].equals("-threads")) {
+				threads = Integer.parseInt(args[i + 1]);
+			}
+		}
+		Codebreaker.Factory strategy = Strategies.forName(name, (long) (budget * 1e6));
+		MastermindSpec spec = MastermindSpec.fromArgs(args);
+		boolean table = Arrays.asList(args).contains("-table");
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		Results results = new Tournament(spec, strategy, table).play(games, seed, pool);
+		pool.shutdown();
+		System.out.println(spec + ", " + name + ", seed " + seed + ", " + threads + " threads");
+		System.out.print(results);
+	}
+}